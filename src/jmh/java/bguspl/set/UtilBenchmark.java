@@ -0,0 +1,131 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH benchmarks for the set algorithms of the Util interface.
+ * Each benchmark runs against both the current UtilImpl and the original implementation (BaselineUtil).
+ * Run with the gc profiler to get the allocation rate as well: java -jar target/benchmarks.jar -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /**
+     * The card configuration in the form FeatureSize^FeatureCount.
+     */
+    @Param({"3^4", "3^5", "4^4", "5^4"})
+    public String features;
+
+    /**
+     * The number of cards searched by findSets (capped by the deck size).
+     */
+    @Param({"12", "21", "81"})
+    public int cards;
+
+    @Param({"current", "baseline"})
+    public String implementation;
+
+    private static final int CANDIDATES = 1024;
+
+    private Util util;
+    private List<Integer> deck;
+    private int[][] candidates;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String[] sizes = features.split("\\^");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", sizes[0]);
+        properties.put("FeatureCount", sizes[1]);
+        Logger logger = Logger.getLogger("UtilBenchmark");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        util = implementation.equals("baseline") ? new BaselineUtil(config) : new UtilImpl(config);
+
+        Random random = new Random(0);
+        List<Integer> shuffled = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(shuffled, random);
+        deck = new ArrayList<>(shuffled.subList(0, Math.min(cards, config.deckSize)));
+
+        // every other candidate is a legal set, the others are random distinct cards, so both outcomes are measured
+        candidates = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; ++i)
+            candidates[i] = i % 2 == 0 ? randomSet(config, random)
+                    : random.ints(0, config.deckSize).distinct().limit(config.featureSize).toArray();
+    }
+
+    /**
+     * Draws a uniformly random legal set: each feature is the same in all the cards (featureSize sets of cards for
+     * each choice of the other features) or a permutation of all the values (one set), and not all the features are
+     * the same (the cards must be distinct).
+     *
+     * @param config - the card configuration.
+     * @param random - the random number generator.
+     * @return - the card ids of the set.
+     */
+    private static int[] randomSet(Config config, Random random) {
+        int[][] features = new int[config.featureSize][config.featureCount];
+        boolean distinct;
+        do {
+            distinct = false;
+            for (int i = 0; i < config.featureCount; ++i) {
+                if (random.nextInt(config.featureSize + 1) < config.featureSize) {
+                    int value = random.nextInt(config.featureSize);
+                    for (int[] card : features) card[i] = value;
+                } else {
+                    List<Integer> values = IntStream.range(0, config.featureSize).boxed().collect(Collectors.toList());
+                    Collections.shuffle(values, random);
+                    for (int j = 0; j < features.length; ++j) features[j][i] = values.get(j);
+                    distinct = true;
+                }
+            }
+        } while (!distinct);
+
+        int[] set = new int[config.featureSize];
+        for (int j = 0; j < set.length; ++j)
+            for (int feature : features[j])
+                set[j] = set[j] * config.featureSize + feature;
+        return set;
+    }
+
+    private int[] nextCandidate() {
+        next = (next + 1) & (CANDIDATES - 1);
+        return candidates[next];
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(nextCandidate());
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(nextCandidate());
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSet() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return util.findSets(deck, Integer.MAX_VALUE);
+    }
+}
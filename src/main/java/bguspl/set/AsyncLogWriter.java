@@ -0,0 +1,179 @@
+package bguspl.set;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Writes user interface events to the log from a single background thread.
+ * Game threads only claim a slot in a lock-free ring buffer and store the compact event there, the writer thread
+ * formats the messages and flushes the log handlers in batches.
+ *
+ * @inv head <= tail <= head + capacity
+ */
+public class AsyncLogWriter implements AutoCloseable {
+
+    /**
+     * The maximum number of events written between two flushes.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    private final Logger logger;
+
+    /**
+     * True iff producers wait for free space when the buffer is full (otherwise the event is dropped).
+     */
+    private final boolean block;
+
+    /**
+     * The ring buffer: the event fields by slot, and the sequence number + 1 of the event published in each slot.
+     */
+    private final int capacity;
+    private final int mask;
+    private final long[] times;
+    private final UiEvent[] events;
+    private final int[] args;
+    private final long[] values;
+    private final Object[] extras;
+    private final AtomicLongArray published;
+
+    /**
+     * The sequence number of the next event to claim (producers) and of the next event to write (writer).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * True while the writer is parked (or about to park) on an empty buffer, and the producers parked on a full one.
+     * A producer unparks the writer after publishing an event, and the writer unparks the producers after writing.
+     */
+    private volatile boolean writerWaiting;
+    private final ConcurrentLinkedQueue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+    private final Thread writerThread;
+
+    /**
+     * The class constructor. Starts the writer thread.
+     *
+     * @param logger   - the logger to write to.
+     * @param capacity - the number of events the buffer holds (rounded up to a power of 2).
+     * @param block    - true iff producers should wait when the buffer is full instead of dropping the event.
+     */
+    public AsyncLogWriter(Logger logger, int capacity, boolean block) {
+        this.logger = logger;
+        this.block = block;
+        this.capacity = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        times = new long[this.capacity];
+        events = new UiEvent[this.capacity];
+        args = new int[this.capacity];
+        values = new long[this.capacity];
+        extras = new Object[this.capacity];
+        published = new AtomicLongArray(this.capacity);
+
+        writerThread = new Thread(this::writeLoop, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Records an event to be written to the log.
+     *
+     * @param event - the event type.
+     * @param arg   - the first argument of the event.
+     * @param value - the second argument of the event.
+     * @param extra - an additional argument object (may be null).
+     */
+    void log(UiEvent event, int arg, long value, Object extra) {
+        if (!logger.isLoggable(Level.SEVERE)) return;
+
+        long sequence;
+        while (true) {
+            sequence = tail.get();
+            if (sequence - head >= capacity) {
+                if (!block || closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                awaitFreeSpace(sequence);
+            } else if (tail.compareAndSet(sequence, sequence + 1))
+                break;
+        }
+
+        int slot = (int) sequence & mask;
+        times[slot] = System.currentTimeMillis();
+        events[slot] = event;
+        args[slot] = arg;
+        values[slot] = value;
+        extras[slot] = extra;
+        published.set(slot, sequence + 1); // publishes the fields above to the writer thread
+        if (writerWaiting) LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Parks a producer until the writer frees space in the buffer (or the writer is closed).
+     *
+     * @param sequence - the sequence number the producer is waiting to claim.
+     */
+    private void awaitFreeSpace(long sequence) {
+        Thread current = Thread.currentThread();
+        waitingProducers.add(current);
+        if (sequence - head >= capacity && !closed) LockSupport.park(this);
+        waitingProducers.remove(current);
+    }
+
+    /**
+     * The main loop of the writer thread.
+     */
+    private void writeLoop() {
+        long next = 0;
+        while (true) {
+            int written = 0;
+            for (int slot = (int) next & mask; written < BATCH_SIZE && published.get(slot) == next + 1; slot = (int) next & mask) {
+                LogRecord record = new LogRecord(Level.SEVERE, events[slot].message(args[slot], values[slot], extras[slot]));
+                record.setMillis(times[slot]);
+                extras[slot] = null;
+                logger.log(record);
+                ++next;
+                ++written;
+            }
+
+            if (written > 0) {
+                head = next;
+                for (Thread producer : waitingProducers) LockSupport.unpark(producer);
+                for (Handler h : logger.getHandlers()) h.flush();
+            } else if (closed && tail.get() == next)
+                return;
+            else {
+                // park until a producer publishes the next event (or the writer is closed)
+                writerWaiting = true;
+                if (published.get((int) next & mask) != next + 1 && !(closed && tail.get() == next))
+                    LockSupport.park(this);
+                writerWaiting = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining events and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        for (Thread producer : waitingProducers) LockSupport.unpark(producer);
+        try {
+            writerThread.join();
+        } catch (InterruptedException ignored) {
+        }
+        if (dropped.get() > 0)
+            logger.severe("log writer dropped " + dropped.get() + " events (buffer full)");
+    }
+}
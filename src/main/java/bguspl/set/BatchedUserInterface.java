@@ -0,0 +1,254 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A user interface that collects the updates of all the game threads and applies them to a swing user interface on
+ * the event dispatch thread, in batches of one frame.
+ * The game threads only record the latest state (card and tokens per slot, freeze and score per player, the timer
+ * and the winners) and mark what changed, so they never wait for the user interface, and an update superseded within
+ * a frame (e.g. a token placed and removed again, or several freeze ticks) is never shown.
+ */
+public class BatchedUserInterface implements UserInterface {
+
+    /**
+     * The time between two batches of updates (about 60 frames per second).
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    private static final int TIMER_COUNTDOWN = 0;
+    private static final int TIMER_WARN = 1;
+    private static final int TIMER_ELAPSED = 2;
+
+    /**
+     * The user interface the updates are applied to (only used on the event dispatch thread).
+     */
+    private final UserInterface ui;
+
+    private final int players;
+    private final int tokenWords;
+
+    /**
+     * The latest state recorded by the game threads: the card on each slot (-1 if none), the tokens on each slot
+     * (tokenWords bitmask words per slot), the freeze and score of each player, the timer and the winners.
+     */
+    private final AtomicIntegerArray slotCards;
+    private final AtomicLongArray tokens;
+    private final AtomicLongArray freezes;
+    private final AtomicIntegerArray scores;
+    private volatile long timerMillis;
+    private volatile int timerMode;
+    private volatile int[] winners;
+
+    /**
+     * What changed since the last batch (1 if changed).
+     */
+    private final AtomicIntegerArray dirtySlots;
+    private final AtomicIntegerArray dirtyPlayers;
+    private final AtomicBoolean dirtyTimer = new AtomicBoolean();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+
+    /**
+     * The cards and tokens shown by the user interface (only used on the event dispatch thread).
+     */
+    private final int[] shownCards;
+    private final long[] shownTokens;
+
+    private final Timer frameTimer;
+
+    /**
+     * The class constructor.
+     *
+     * @param config - the game configuration.
+     * @param ui     - the swing user interface to apply the updates to.
+     */
+    public BatchedUserInterface(Config config, UserInterface ui) {
+        this.ui = ui;
+        this.players = config.players;
+        this.tokenWords = (config.players + Long.SIZE - 1) / Long.SIZE;
+        slotCards = new AtomicIntegerArray(config.tableSize);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            slotCards.set(slot, -1);
+        tokens = new AtomicLongArray(config.tableSize * tokenWords);
+        freezes = new AtomicLongArray(config.players);
+        scores = new AtomicIntegerArray(config.players);
+        dirtySlots = new AtomicIntegerArray(config.tableSize);
+        shownCards = new int[config.tableSize];
+        Arrays.fill(shownCards, -1);
+        dirtyPlayers = new AtomicIntegerArray(config.players);
+        shownTokens = new long[config.tableSize * tokenWords];
+
+        frameTimer = new Timer(FRAME_MILLIS, e -> applyUpdates());
+        frameTimer.setRepeats(false);
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        slotCards.set(slot, card);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        slotCards.set(slot, -1);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        int word = slot * tokenWords + player / Long.SIZE;
+        long bit = 1L << player;
+        long mask;
+        do {
+            mask = tokens.get(word);
+        } while (!tokens.compareAndSet(word, mask, mask | bit));
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        for (int slot = 0; slot < dirtySlots.length(); slot++)
+            removeTokens(slot);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        for (int word = slot * tokenWords; word < (slot + 1) * tokenWords; word++)
+            tokens.set(word, 0);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        int word = slot * tokenWords + player / Long.SIZE;
+        long bit = 1L << player;
+        long mask;
+        do {
+            mask = tokens.get(word);
+        } while (!tokens.compareAndSet(word, mask, mask & ~bit));
+        slotChanged(slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        timerChanged(millies, warn ? TIMER_WARN : TIMER_COUNTDOWN);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        timerChanged(millies, TIMER_ELAPSED);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        freezes.set(player, millies);
+        playerChanged(player);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        playerChanged(player);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        winners = players.clone();
+        scheduleFrame();
+    }
+
+    @Override
+    public void dispose() {
+        // the last updates are applied before the user interface is disposed
+        EventQueue.invokeLater(() -> {
+            frameTimer.stop();
+            applyUpdates();
+            ui.dispose();
+        });
+    }
+
+    private void slotChanged(int slot) {
+        dirtySlots.set(slot, 1);
+        scheduleFrame();
+    }
+
+    private void playerChanged(int player) {
+        dirtyPlayers.set(player, 1);
+        scheduleFrame();
+    }
+
+    private void timerChanged(long millies, int mode) {
+        timerMode = mode;
+        timerMillis = millies;
+        dirtyTimer.set(true);
+        scheduleFrame();
+    }
+
+    /**
+     * Schedules a batch of updates unless one is already scheduled.
+     */
+    private void scheduleFrame() {
+        if (frameScheduled.compareAndSet(false, true)) frameTimer.start();
+    }
+
+    /**
+     * Applies the updates recorded since the last batch to the user interface (called on the event dispatch thread).
+     * An update recorded while the batch is applied is shown in this batch or in the next one.
+     */
+    private void applyUpdates() {
+        frameScheduled.set(false);
+
+        for (int slot = 0; slot < dirtySlots.length(); slot++) {
+            if (dirtySlots.getAndSet(slot, 0) == 0) continue;
+            int card = slotCards.get(slot);
+            if (card != shownCards[slot]) {
+                shownCards[slot] = card;
+                if (card < 0) ui.removeCard(slot);
+                else ui.placeCard(card, slot);
+            }
+            applyTokens(slot);
+        }
+
+        for (int player = 0; player < players; player++) {
+            if (dirtyPlayers.getAndSet(player, 0) == 0) continue;
+            ui.setFreeze(player, freezes.get(player));
+            ui.setScore(player, scores.get(player));
+        }
+
+        if (dirtyTimer.getAndSet(false)) {
+            int mode = timerMode;
+            long millies = timerMillis;
+            if (mode == TIMER_ELAPSED) ui.setElapsed(millies);
+            else ui.setCountdown(millies, mode == TIMER_WARN);
+        }
+
+        int[] winners = this.winners;
+        if (winners != null) {
+            this.winners = null;
+            ui.announceWinner(winners);
+        }
+    }
+
+    /**
+     * Shows the tokens placed on a slot or removed from it since the last batch.
+     *
+     * @param slot - the slot.
+     */
+    private void applyTokens(int slot) {
+        for (int word = slot * tokenWords, first = 0; word < (slot + 1) * tokenWords; word++, first += Long.SIZE) {
+            long mask = tokens.get(word);
+            long changed = mask ^ shownTokens[word];
+            shownTokens[word] = mask;
+            for (; changed != 0; changed &= changed - 1) {
+                int player = first + Long.numberOfTrailingZeros(changed);
+                if ((mask & (1L << player)) != 0) ui.placeToken(player, slot);
+                else ui.removeToken(player, slot);
+            }
+        }
+    }
+}
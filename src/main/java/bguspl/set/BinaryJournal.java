@@ -0,0 +1,109 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+/**
+ * The implementation of the GameJournal interface as a compact binary file written through a buffered NIO channel.
+ * The file starts with a header (magic, version, featureSize, featureCount, rows, columns, players) followed by
+ * fixed size records (event ordinal, time, 4 arguments).
+ */
+public class BinaryJournal implements GameJournal {
+
+    static final int MAGIC = 0x5345544A; // "SETJ"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7 * Integer.BYTES;
+    static final int RECORD_SIZE = Byte.BYTES + Long.BYTES + 4 * Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Logger logger;
+    private final GameClock clock;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * True iff writing failed (the journal stops recording after the first error).
+     */
+    private boolean failed;
+
+    /**
+     * The class constructor. Creates the journal file and writes its header.
+     *
+     * @param path   - the journal file.
+     * @param config - the configuration of the recorded game.
+     * @param logger - the game logger.
+     * @param clock  - the game clock (used to stamp the events).
+     * @throws IOException - if the file can not be created.
+     */
+    public BinaryJournal(Path path, Config config, Logger logger, GameClock clock) throws IOException {
+        this.logger = logger;
+        this.clock = clock;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .putInt(config.featureSize).putInt(config.featureCount)
+                .putInt(config.rows).putInt(config.columns)
+                .putInt(config.players);
+    }
+
+    /**
+     * Creates a journal for a game in config.journalDirectory.
+     *
+     * @param name   - the journal file name (without extension).
+     * @param config - the configuration of the recorded game.
+     * @param logger - the game logger.
+     * @param clock  - the game clock.
+     * @return - the journal, or GameJournal.NONE if journaling is disabled or the file can not be created.
+     */
+    public static GameJournal create(String name, Config config, Logger logger, GameClock clock) {
+        if (config.journalDirectory.isEmpty()) return GameJournal.NONE;
+        try {
+            Path directory = Paths.get(config.journalDirectory);
+            Files.createDirectories(directory);
+            return new BinaryJournal(directory.resolve(name + ".journal"), config, logger, clock);
+        } catch (IOException | InvalidPathException e) {
+            logger.severe("cannot create game journal " + name + ": " + e.getMessage());
+            return GameJournal.NONE;
+        }
+    }
+
+    @Override
+    public synchronized void record(JournalEvent event, int a, int b, int c, int d) {
+        if (failed) return;
+        if (buffer.remaining() < RECORD_SIZE) flush();
+        buffer.put((byte) event.ordinal()).putLong(clock.currentTimeMillis())
+                .putInt(a).putInt(b).putInt(c).putInt(d);
+    }
+
+    private void flush() {
+        // called through Buffer: the covariant ByteBuffer overrides (Java 9+) do not exist on a Java 8 runtime
+        ((Buffer) buffer).flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            failed = true;
+            logger.severe("cannot write game journal: " + e.getMessage());
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.severe("cannot close game journal: " + e.getMessage());
+        }
+    }
+}
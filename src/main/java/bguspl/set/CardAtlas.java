@@ -0,0 +1,326 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * The card images of a game, scaled to the cell size of the table and packed into the cells of a single image (the
+ * atlas) in the pixel format of the screen, so drawing a card is a plain, possibly accelerated, copy of a rectangle
+ * of the atlas. The last cell of the atlas holds the empty card.
+ * The images are loaded in the background by a pool shared by all the games, and the empty card is drawn in place
+ * of a card until its image is copied into the atlas. A card is loaded from the bundled card images if there is one,
+ * and drawn from its features by a CardRenderer otherwise (so decks of any size can be shown). Small decks are loaded
+ * up front, the cards of bigger decks when they are first drawn, and the atlas holds the most recently drawn cards
+ * only (a newly loaded card takes the cell of the least recently drawn one). The loaded images are kept in a cache
+ * shared by all the games of the process (softly referenced, so the memory can be reclaimed when no game needs them),
+ * so later games and other windows with the same cell size do not load them again. A card whose image cannot be
+ * loaded is reported once and then drawn as the empty card.
+ */
+class CardAtlas {
+
+    /**
+     * The minimum number of card images a game keeps (decks up to this size are loaded up front).
+     */
+    private static final int MIN_KEPT_CARDS = 256;
+
+    /**
+     * The maximum width of the atlas in pixels (a common texture size limit of graphics pipelines).
+     */
+    private static final int MAX_WIDTH = 8192;
+
+    /**
+     * The loaded images of all the games, by card image name and cell size, and the queue the references of the images
+     * reclaimed by the garbage collector are put on (their entries are removed from the cache on the next lookup).
+     */
+    private static final ConcurrentHashMap<Key, CachedImage> cache = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<BufferedImage> reclaimed = new ReferenceQueue<>();
+
+    private final Config config;
+    private final Util util;
+    private final Logger logger;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final CardRenderer renderer;
+
+    /**
+     * The atlas, its number of columns, the number of its cells that hold cards and the cell of the empty card.
+     */
+    private final BufferedImage atlas;
+    private final int columns;
+    private final int kept;
+    private final int emptyCell;
+
+    /**
+     * The atlas cells of the most recently drawn cards of this game, in access order (guards the atlas too), the cards
+     * being loaded and the cards whose images could not be loaded.
+     */
+    private final LinkedHashMap<Integer, Integer> cells = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> loading = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> failed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Called by a loader thread with the id of a card whose image became ready.
+     */
+    private final IntConsumer loaded;
+
+    /**
+     * The class constructor. Starts loading the card images of a small deck in the background.
+     *
+     * @param config - the game configuration.
+     * @param logger - the logger to report images that cannot be loaded to.
+     * @param loaded - called by a loader thread with the id of each card whose image becomes ready.
+     */
+    CardAtlas(Config config, Logger logger, IntConsumer loaded) {
+        this.config = config;
+        this.util = new UtilImpl(config);
+        this.logger = logger;
+        this.cellWidth = config.cellWidth;
+        this.cellHeight = config.cellHeight;
+        this.loaded = loaded;
+        this.renderer = new CardRenderer(config.featureSize, cellWidth, cellHeight);
+        this.kept = Math.min(config.deckSize, Math.max(MIN_KEPT_CARDS, 2 * config.tableSize));
+        this.emptyCell = kept;
+        this.columns = Math.max(1, Math.min(kept + 1, MAX_WIDTH / cellWidth));
+        this.atlas = createCompatibleImage(columns * cellWidth, (kept + columns) / columns * cellHeight);
+        copyToCell(image("empty_card"), emptyCell);
+        if (config.deckSize <= kept)
+            for (int card = 0; card < config.deckSize; ++card)
+                request(card);
+    }
+
+    /**
+     * Draws a card (the empty card if the image of the card is not ready yet).
+     *
+     * @param g    - the graphics to draw on.
+     * @param card - the card id (-1 for the empty card).
+     * @param x    - the left coordinate of the cell.
+     * @param y    - the top coordinate of the cell.
+     */
+    void drawCard(Graphics g, int card, int x, int y) {
+        Integer cell;
+        synchronized (cells) {
+            cell = card < 0 ? null : cells.get(card);
+            int index = cell == null ? emptyCell : cell;
+            int sx = (index % columns) * cellWidth;
+            int sy = (index / columns) * cellHeight;
+            g.drawImage(atlas, x, y, x + cellWidth, y + cellHeight, sx, sy, sx + cellWidth, sy + cellHeight, null);
+        }
+        if (card >= 0 && cell == null) request(card);
+    }
+
+    /**
+     * Loads the image of a card in the background, unless it is already being loaded or could not be loaded before.
+     *
+     * @param card - the card id.
+     */
+    private void request(int card) {
+        if (!failed.contains(card) && loading.add(card)) Loader.pool.execute(() -> load(card));
+    }
+
+    private void load(int card) {
+        try {
+            BufferedImage image = config.featureSize <= 10 ? bundledImage(card) : null;
+            if (image == null) image = renderedImage(card);
+            synchronized (cells) {
+                if (!cells.containsKey(card)) {
+                    // the cells in use are always the first ones, until the atlas is full
+                    int cell;
+                    if (cells.size() < kept) cell = cells.size();
+                    else {
+                        Iterator<Integer> eldest = cells.values().iterator();
+                        cell = eldest.next();
+                        eldest.remove();
+                    }
+                    cells.put(card, cell);
+                    copyToCell(image, cell);
+                }
+            }
+            loaded.accept(card);
+        } catch (RuntimeException e) {
+            failed.add(card);
+            logger.severe("cannot load the image of card " + card + ": " + e);
+        } finally {
+            loading.remove(card);
+        }
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the bundled image of the card scaled to the cell size, null if there is none.
+     */
+    private BufferedImage bundledImage(int card) {
+        String name = UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize);
+        if (CardAtlas.class.getClassLoader().getResource("cards/" + name + ".png") == null) return null;
+        return image(name);
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the image of the card drawn from its features, from the cache or drawn now.
+     */
+    private BufferedImage renderedImage(int card) {
+        int[] features = util.cardToFeatures(card);
+        Key key = new Key("rendered-" + config.featureSize + Arrays.toString(features), cellWidth, cellHeight);
+        return cached(key, () -> renderer.render(features));
+    }
+
+    /**
+     * @param name - the name of a bundled card image.
+     * @return - the image scaled to the cell size, from the cache or decoded now.
+     */
+    private BufferedImage image(String name) {
+        return cached(new Key(name, cellWidth, cellHeight), () -> scaled(loadImageResource("cards/" + name + ".png")));
+    }
+
+    /**
+     * @param key  - the cache key of an image.
+     * @param load - loads the image if it is not in the cache.
+     * @return - the image from the cache, or loaded now and put in the cache.
+     */
+    private static BufferedImage cached(Key key, Supplier<BufferedImage> load) {
+        removeReclaimed();
+        CachedImage cached = cache.get(key);
+        BufferedImage image = cached == null ? null : cached.get();
+        if (image == null) {
+            image = load.get();
+            cache.put(key, new CachedImage(key, image));
+        }
+        return image;
+    }
+
+    /**
+     * Removes the entries of the images reclaimed by the garbage collector from the cache (unless they were replaced).
+     */
+    private static void removeReclaimed() {
+        for (Reference<? extends BufferedImage> reference; (reference = reclaimed.poll()) != null; )
+            cache.remove(((CachedImage) reference).key, reference);
+    }
+
+    private void copyToCell(BufferedImage image, int cell) {
+        Graphics2D g = atlas.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, (cell % columns) * cellWidth, (cell / columns) * cellHeight, null);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private BufferedImage scaled(BufferedImage source) {
+        BufferedImage image = createCompatibleImage(cellWidth, cellHeight);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, cellWidth, cellHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Creates a translucent image in the pixel format of the screen (a plain ARGB image when there is no screen).
+     */
+    static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    private static BufferedImage loadImageResource(String filename) {
+        URL imageResource = CardAtlas.class.getClassLoader().getResource(filename);
+        if (imageResource == null)
+            throw new RuntimeException(new FileNotFoundException(filename));
+        try {
+            return ImageIO.read(imageResource);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The cache key of a card image: its name (or features) and cell size.
+     */
+    private static final class Key {
+
+        private final String name;
+        private final int width;
+        private final int height;
+
+        private Key(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return (name.hashCode() * 31 + width) * 31 + height;
+        }
+    }
+
+    /**
+     * A softly referenced cached image that knows its cache key, so its entry can be removed once it is reclaimed.
+     */
+    private static final class CachedImage extends SoftReference<BufferedImage> {
+
+        private final Key key;
+
+        private CachedImage(Key key, BufferedImage image) {
+            super(image, reclaimed);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The pool of image loader threads, created on first use. The threads are daemons and exit when idle.
+     */
+    private static final class Loader {
+
+        private static final AtomicInteger threads = new AtomicInteger();
+
+        private static final ExecutorService pool = createPool();
+
+        private static ExecutorService createPool() {
+            int size = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    task -> {
+                        Thread thread = new Thread(task, "card-loader-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package bguspl.set;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws card images from the features of the cards, for decks that have no bundled card images.
+ * The first four features are drawn like on the bundled cards: the number of symbols, their color, their shape and
+ * their shading (the first three values of each look like the bundled cards, the other values get other colors,
+ * polygon shapes and hatching angles). The values of any further features are written in the corner of the card.
+ */
+class CardRenderer {
+
+    private static final Color[] COLORS = {new Color(237, 28, 36), new Color(102, 45, 145), new Color(0, 166, 81)};
+
+    private static final int NUMBER = 0;
+    private static final int COLOR = 1;
+    private static final int SHAPE = 2;
+    private static final int SHADING = 3;
+
+    private final int featureSize;
+    private final int width;
+    private final int height;
+
+    /**
+     * The class constructor.
+     *
+     * @param featureSize - the number of values of each feature.
+     * @param width       - the width of the card images.
+     * @param height      - the height of the card images.
+     */
+    CardRenderer(int featureSize, int width, int height) {
+        this.featureSize = featureSize;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param features - the features of a card.
+     * @return - the image of the card.
+     */
+    BufferedImage render(int[] features) {
+        BufferedImage image = CardAtlas.createCompatibleImage(width, height);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            draw(g, features);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void draw(Graphics2D g, int[] features) {
+        float stroke = Math.max(1f, Math.min(width, height) / 40f);
+        Shape card = new RoundRectangle2D.Float(width * 0.03f, height * 0.04f, width * 0.94f, height * 0.92f,
+                width * 0.06f, width * 0.06f);
+        g.setColor(Color.white);
+        g.fill(card);
+        g.setColor(Color.lightGray);
+        g.setStroke(new BasicStroke(1f));
+        g.draw(card);
+
+        // lay the symbols out in rows of up to three (more for bigger decks), centered on the card
+        int symbols = feature(features, NUMBER) + 1;
+        int columns = Math.min(symbols, Math.max(3, (int) Math.ceil(Math.sqrt(2.0 * symbols))));
+        int rows = (symbols + columns - 1) / columns;
+        double slotWidth = width * 0.8 / Math.max(columns, 3);
+        double slotHeight = height * 0.8 / rows;
+        g.setStroke(new BasicStroke(stroke));
+        g.setColor(color(feature(features, COLOR)));
+        for (int i = 0; i < symbols; i++) {
+            int row = i / columns;
+            int inRow = Math.min(columns, symbols - row * columns);
+            double x = (width - inRow * slotWidth) / 2 + (i % columns) * slotWidth + slotWidth * 0.15;
+            double y = height * 0.1 + row * slotHeight + slotHeight * 0.1;
+            Shape symbol = shape(feature(features, SHAPE), x, y, slotWidth * 0.7, slotHeight * 0.8);
+            shade(g, symbol, feature(features, SHADING), stroke);
+        }
+
+        if (features.length > SHADING + 1) {
+            StringBuilder extra = new StringBuilder();
+            for (int i = SHADING + 1; i < features.length; i++)
+                extra.append(i > SHADING + 1 ? "-" : "").append(features[i]);
+            g.setColor(Color.darkGray);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(8, height / 10)));
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(extra.toString(), (int) (width * 0.95) - metrics.stringWidth(extra.toString()) - 2,
+                    (int) (height * 0.94) - metrics.getDescent());
+        }
+    }
+
+    private static int feature(int[] features, int feature) {
+        return feature < features.length ? features[feature] : 0;
+    }
+
+    private Color color(int value) {
+        if (value < COLORS.length) return COLORS[value];
+        return Color.getHSBColor((value - COLORS.length + 0.5f) / (featureSize - COLORS.length), 0.8f, 0.75f);
+    }
+
+    /**
+     * @return - the symbol of a shape value in the given bounds: a squiggle, a diamond, an oval, then polygons with
+     * more and more sides.
+     */
+    private static Shape shape(int value, double x, double y, double w, double h) {
+        switch (value) {
+            case 0:
+                Path2D squiggle = new Path2D.Double();
+                squiggle.moveTo(x + w * 0.3, y + h * 0.04);
+                squiggle.curveTo(x + w * 0.9, y - h * 0.04, x + w * 1.05, y + h * 0.3, x + w * 0.8, y + h * 0.45);
+                squiggle.curveTo(x + w * 0.6, y + h * 0.6, x + w * 1.0, y + h * 0.85, x + w * 0.75, y + h * 0.96);
+                squiggle.curveTo(x + w * 0.45, y + h * 1.04, x - w * 0.05, y + h * 0.95, x + w * 0.2, y + h * 0.6);
+                squiggle.curveTo(x + w * 0.4, y + h * 0.4, x - w * 0.1, y + h * 0.12, x + w * 0.3, y + h * 0.04);
+                squiggle.closePath();
+                return squiggle;
+            case 1:
+                Path2D diamond = new Path2D.Double();
+                diamond.moveTo(x + w / 2, y);
+                diamond.lineTo(x + w, y + h / 2);
+                diamond.lineTo(x + w / 2, y + h);
+                diamond.lineTo(x, y + h / 2);
+                diamond.closePath();
+                return diamond;
+            case 2:
+                return new RoundRectangle2D.Double(x, y, w, h, w, w);
+            default:
+                Path2D polygon = new Path2D.Double();
+                for (int i = 0; i < value; i++) {
+                    double angle = -Math.PI / 2 + 2 * Math.PI * i / value;
+                    double px = x + w / 2 + Math.cos(angle) * w / 2, py = y + h / 2 + Math.sin(angle) * h / 2;
+                    if (i == 0) polygon.moveTo(px, py);
+                    else polygon.lineTo(px, py);
+                }
+                polygon.closePath();
+                return polygon;
+        }
+    }
+
+    /**
+     * Draws a symbol with a shading value: solid, striped, outlined, then hatched at more and more angles.
+     */
+    private void shade(Graphics2D g, Shape symbol, int value, float stroke) {
+        if (value == 0) {
+            g.fill(symbol);
+            return;
+        }
+        if (value != 2) {
+            Rectangle2D bounds = symbol.getBounds2D();
+            double angle = value == 1 ? 0 : Math.PI * (value - 2) / (featureSize - 2);
+            double radius = Math.hypot(bounds.getWidth(), bounds.getHeight()) / 2;
+            double gap = Math.max(2 * stroke, bounds.getHeight() / 12);
+            Graphics2D stripes = (Graphics2D) g.create();
+            stripes.clip(symbol);
+            stripes.rotate(angle, bounds.getCenterX(), bounds.getCenterY());
+            stripes.setStroke(new BasicStroke(stroke / 2));
+            for (double offset = -radius; offset <= radius; offset += gap)
+                stripes.draw(new Line2D.Double(bounds.getCenterX() - radius, bounds.getCenterY() + offset,
+                        bounds.getCenterX() + radius, bounds.getCenterY() + offset));
+            stripes.dispose();
+        }
+        g.draw(symbol);
+    }
+}
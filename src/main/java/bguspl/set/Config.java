@@ -21,6 +21,42 @@ public class Config {
     public final long randomSpinMin;
     public final long randomSpinMax;
 
+    /**
+     * The number of user interface events buffered for the background log writer (0 to log synchronously)
+     */
+    public final int logQueueCapacity;
+
+    /**
+     * Whether game threads wait for free space when the log buffer is full (otherwise the events are dropped)
+     */
+    public final boolean logQueueBlock;
+
+    /**
+     * The directory to write binary game journals to (empty to disable journaling)
+     */
+    public final String journalDirectory;
+
+    /**
+     * Whether to run headless simulated games (no user interface, virtual time for delays, countdowns and freezes) as
+     * fast as possible
+     */
+    public final boolean simulation;
+
+    /**
+     * The number of games to run in simulation mode
+     */
+    public final int simulationGames;
+
+    /**
+     * The maximum number of simulated games running at the same time (defaults to the number of available cores)
+     */
+    public final int simulationThreads;
+
+    /**
+     * Whether to run the player and computer threads on virtual threads (requires java 21 or newer at runtime)
+     */
+    public final boolean virtualThreads;
+
     /**
      * The number of features on the cards (e.g. shape, color etc.)
      */
@@ -36,6 +72,11 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The seed of the random number generator used to draw cards from the deck (negative for a random seed)
+     */
+    public final long deckSeed;
+
     /**
      * The number of human players in the game.
      */
@@ -46,6 +87,22 @@ public class Config {
      */
     public final int computerPlayers;
 
+    /**
+     * The key press strategy of each computer player (random, oracle or skilled)
+     */
+    public final String[] computerStrategies;
+
+    /**
+     * The probability that a skilled computer player goes for a legal set (otherwise it presses random slots)
+     */
+    public final double computerSkill;
+
+    /**
+     * The mean and the standard deviation of the time a skilled computer player takes to react to a table change
+     */
+    public final long computerReactionMillis;
+    public final long computerReactionJitterMillis;
+
     /**
      * The total number of players (human + computer) in the game
      */
@@ -186,6 +243,9 @@ public class Config {
         Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
         String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
+        logQueueCapacity = Integer.parseInt(properties.getProperty("LogQueueCapacity", "65536"));
+        logQueueBlock = properties.getProperty("LogQueueFullPolicy", "Block").trim().equalsIgnoreCase("Block");
+        journalDirectory = properties.getProperty("JournalDirectory", "").trim();
 
         // for debugging
         randomSpinMin = Long.parseLong(properties.getProperty("RandomSpinMin", "0"));
@@ -193,15 +253,29 @@ public class Config {
         if (randomSpinMax < randomSpinMin || randomSpinMin < 0)
             logger.severe("invalid random spin cycles: max: " + randomSpinMax + " min: " + randomSpinMin);
 
+        // simulation settings
+        simulation = Boolean.parseBoolean(properties.getProperty("Simulation", "False"));
+        simulationGames = Integer.parseInt(properties.getProperty("SimulationGames", "1"));
+        int threads = Integer.parseInt(properties.getProperty("SimulationThreads", "0"));
+        simulationThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        virtualThreads = properties.getProperty("PlayerThreads", "Platform").trim().equalsIgnoreCase("Virtual");
+
         // cards settings
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        deckSeed = Long.parseLong(properties.getProperty("DeckSeed", "-1"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        String[] strategies = properties.getProperty("ComputerStrategies", "Random").split(",");
+        computerStrategies = new String[computerPlayers];
+        Arrays.setAll(computerStrategies, i -> strategies[Math.min(i, strategies.length - 1)].trim().toLowerCase());
+        computerSkill = Double.parseDouble(properties.getProperty("ComputerSkill", "0.8"));
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "1")) * 1000.0);
+        computerReactionJitterMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionJitterSeconds", "0.25")) * 1000.0);
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +9,25 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameClock clock;
+    public final GameJournal journal;
+    public final ThreadFactory threadFactory;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, GameClock.forConfig(config));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameClock clock) {
+        this(logger, config, ui, util, clock, GameJournal.NONE);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameClock clock, GameJournal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.journal = journal;
+        this.threadFactory = ThreadFactories.forConfig(config, logger);
     }
 }
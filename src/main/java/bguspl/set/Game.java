@@ -0,0 +1,120 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * This class holds the entities of a single game and runs it.
+ */
+public class Game {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Table table;
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The thread that plays the game (i.e. waits for the dealer thread to finish).
+     */
+    private volatile Thread gameThread;
+
+    private volatile boolean xButtonPressed = false;
+
+    private static final SimpleDateFormat JOURNAL_DATE_FORMAT = new SimpleDateFormat("M-d_HH-mm-ss");
+
+    /**
+     * Creates a game with a swing user interface (or with no user interface if swing is not available).
+     *
+     * @param logger    - the game logger.
+     * @param config    - the game configuration.
+     * @param util      - the game utilities.
+     * @param logWriter - the background writer for the user interface log (null to log synchronously).
+     */
+    public Game(Logger logger, Config config, Util util, AsyncLogWriter logWriter) {
+        players = new Player[config.players];
+        UserInterface ui = null;
+        try {
+            ui = new BatchedUserInterface(config, new UserInterfaceSwing(logger, config, players, this));
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            logger.severe("error creating swing user interface: " + e.getMessage());
+            logger.severe("will try to run without user interface");
+            if (config.humanPlayers > 0)
+                logger.severe("warning: running with human players with no user interface");
+        }
+        GameClock clock = GameClock.forConfig(config);
+        GameJournal journal = BinaryJournal.create(JOURNAL_DATE_FORMAT.format(new Date()), config, logger, clock);
+        env = new Env(logger, config, new UserInterfaceDecorator(logger, util, ui, logWriter), util, clock, journal);
+
+        table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+    }
+
+    /**
+     * Creates a game in an existing environment (the environment objects may be shared between games).
+     *
+     * @param env - the game environment objects.
+     */
+    public Game(Env env) {
+        this.env = env;
+        players = new Player[env.config.players];
+        table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+    }
+
+    /**
+     * Starts the dealer thread and waits for the game to finish.
+     *
+     * @return - the result of the game.
+     * @throws InterruptedException - if interrupted while waiting for the dealer thread.
+     */
+    public GameResult play() throws InterruptedException {
+        gameThread = Thread.currentThread();
+        long start = System.currentTimeMillis();
+        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", env.logger);
+        dealerThread.startWithLog();
+        try {
+            dealerThread.joinWithLog();
+        } finally {
+            env.journal.close();
+        }
+
+        int[] scores = new int[players.length];
+        for (int i = 0; i < players.length; i++)
+            scores[i] = players[i].score();
+        return new GameResult(scores, dealer.getWinners(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Called when the window of the game is closed. Terminates the game and waits for the game thread to finish.
+     */
+    public void xButtonPressed() throws InterruptedException {
+        env.logger.severe("exit button pressed");
+        xButtonPressed = true;
+        dealer.terminate();
+        if (gameThread != null) gameThread.join();
+    }
+
+    public boolean isXButtonPressed() {
+        return xButtonPressed;
+    }
+
+    public Env getEnv() {
+        return env;
+    }
+}
@@ -0,0 +1,48 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An interface for the time source used by the dealer, the players and the table.
+ */
+public interface GameClock {
+
+    /**
+     * @param config - the game configuration.
+     * @return - a new virtual clock in simulation mode, a real time clock otherwise.
+     */
+    static GameClock forConfig(Config config) {
+        return config.simulation ? new VirtualClock() : new RealTimeClock();
+    }
+
+    /**
+     * @return - the current time in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Lets the given amount of time pass for the calling thread's own work (e.g. the table delay of the dealer).
+     *
+     * @param millis - the number of milliseconds.
+     * @throws InterruptedException - if interrupted while sleeping.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Blocks the calling thread until the clock reaches the given time (e.g. the end of a player freeze).
+     *
+     * @param deadline - the time in milliseconds to wait for.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    void awaitUntil(long deadline) throws InterruptedException;
+
+    /**
+     * Retrieves and removes the head of the queue, waiting up to the given time for an element to become available.
+     *
+     * @param queue         - the queue to poll.
+     * @param timeoutMillis - the maximum number of milliseconds to wait.
+     * @return - the head of the queue, or null if the timeout elapsed first.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    <E> E poll(BlockingQueue<E> queue, long timeoutMillis) throws InterruptedException;
+}
@@ -0,0 +1,35 @@
+package bguspl.set;
+
+/**
+ * An interface for recording the events of a game (see JournalEvent for the arguments of each event type).
+ */
+public interface GameJournal extends AutoCloseable {
+
+    /**
+     * A journal that records nothing.
+     */
+    GameJournal NONE = (event, a, b, c, d) -> {
+    };
+
+    /**
+     * Records an event.
+     *
+     * @param event - the event type.
+     * @param a     - the first argument of the event.
+     * @param b     - the second argument of the event.
+     * @param c     - the third argument of the event.
+     * @param d     - the fourth argument of the event.
+     */
+    void record(JournalEvent event, int a, int b, int c, int d);
+
+    default void record(JournalEvent event, int a, int b) {
+        record(event, a, b, 0, 0);
+    }
+
+    /**
+     * Writes out any buffered events and releases the journal resources.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,39 @@
+package bguspl.set;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a single game.
+ */
+public class GameResult {
+
+    /**
+     * The final score of each player (by player id).
+     */
+    public final int[] scores;
+
+    /**
+     * The ids of the winning players (more than one in case of a draw).
+     */
+    public final int[] winners;
+
+    /**
+     * The wall clock duration of the game in milliseconds.
+     */
+    public final long durationMillis;
+
+    public GameResult(int[] scores, int[] winners, long durationMillis) {
+        this.scores = scores;
+        this.winners = winners;
+        this.durationMillis = durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult{" +
+                "scores=" + Arrays.toString(scores) +
+                ", winners=" + Arrays.toString(winners) +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
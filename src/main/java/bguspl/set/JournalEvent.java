@@ -0,0 +1,18 @@
+package bguspl.set;
+
+/**
+ * The types of the events recorded in a game journal.
+ * The meaning of the record arguments is given next to each type (unused arguments are 0).
+ */
+public enum JournalEvent {
+    CARD_PLACED,     // card, slot
+    CARD_REMOVED,    // card, slot
+    TOKEN_PLACED,    // player, slot
+    TOKEN_REMOVED,   // player, slot
+    TOKENS_CLEARED,  // slot
+    CLAIM_SUBMITTED, // player, slot, slot, slot
+    CLAIM_VERDICT,   // player, verdict (the ordinal of bguspl.set.ex.Claim.Verdict)
+    SCORE,           // player, score
+    FREEZE,          // player, milliseconds
+    RESHUFFLE        // (no arguments)
+}
@@ -0,0 +1,327 @@
+package bguspl.set;
+
+import bguspl.set.ex.Claim;
+import bguspl.set.ex.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Replays a game journal written by BinaryJournal. The replay rebuilds the table, token and score state from the
+ * recorded events and checks the game invariants on the way (and optionally shows the game in the swing user
+ * interface).
+ */
+public class JournalReplay {
+
+    /**
+     * The maximum number of violations printed (all of them are counted).
+     */
+    private static final int MAX_REPORTED = 20;
+
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The user interface to show the replay in (null for a headless check).
+     */
+    private final UserInterface ui;
+
+    /**
+     * The replay speed factor (only used with a user interface).
+     */
+    private final double speed;
+
+    /**
+     * The replayed game state.
+     */
+    private final Integer[] slotToCard;
+    private final boolean[] cardOnTable;
+    private final boolean[][] tokens;  // tokens[player][slot]
+    private final int[] scores;
+    private final int[][] pendingClaims; // the claimed slots per player (null if none)
+    private final int[] pendingPoints; // valid verdicts not yet followed by a score
+
+    private final List<String> violations = new ArrayList<>();
+    private long events;
+
+    /**
+     * The class constructor.
+     *
+     * @param config - the configuration of the recorded game (built from the journal header).
+     * @param ui     - the user interface to show the replay in (null for a headless check).
+     * @param speed  - the replay speed factor.
+     */
+    public JournalReplay(Config config, UserInterface ui, double speed) {
+        this.config = config;
+        this.util = new UtilImpl(config);
+        this.ui = ui;
+        this.speed = speed;
+        slotToCard = new Integer[config.tableSize];
+        cardOnTable = new boolean[config.deckSize];
+        tokens = new boolean[config.players][config.tableSize];
+        scores = new int[config.players];
+        pendingClaims = new int[config.players][];
+        pendingPoints = new int[config.players];
+    }
+
+    /**
+     * Replays a journal file.
+     *
+     * @param args - the journal file, optionally followed by --ui and a speed factor (e.g. "game-1.journal --ui 4").
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: JournalReplay <journal file> [--ui [speed]]");
+            System.exit(2);
+        }
+        boolean showUi = args.length > 1 && args[1].equals("--ui");
+        double speed = showUi && args.length > 2 ? Double.parseDouble(args[2]) : 1;
+
+        ByteBuffer journal;
+        try {
+            journal = ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0])));
+        } catch (IOException e) {
+            System.err.println("cannot read journal " + args[0] + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (journal.remaining() < BinaryJournal.HEADER_SIZE || journal.getInt() != BinaryJournal.MAGIC) {
+            System.err.println(args[0] + " is not a game journal");
+            System.exit(2);
+        }
+        int version = journal.getInt();
+        if (version != BinaryJournal.VERSION) {
+            System.err.println("unsupported journal version " + version);
+            System.exit(2);
+        }
+
+        Logger logger = Logger.getAnonymousLogger();
+        Config config = new Config(logger, headerProperties(journal));
+        UserInterface ui = showUi
+                ? new BatchedUserInterface(config, new UserInterfaceSwing(logger, config, new Player[config.players], null))
+                : null;
+        JournalReplay replay = new JournalReplay(config, ui, speed);
+        try {
+            replay.replay(journal);
+        } catch (InterruptedException ignored) {
+        }
+        System.out.print(replay.report());
+        if (ui != null) ui.dispose();
+        System.exit(replay.violations.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Reads the game settings from the journal header.
+     *
+     * @param journal - the journal positioned after the magic and version fields.
+     * @return - the properties of the recorded game configuration.
+     */
+    private static Properties headerProperties(ByteBuffer journal) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("FeatureSize", Integer.toString(journal.getInt()));
+        properties.setProperty("FeatureCount", Integer.toString(journal.getInt()));
+        properties.setProperty("Rows", Integer.toString(journal.getInt()));
+        properties.setProperty("Columns", Integer.toString(journal.getInt()));
+        int players = journal.getInt();
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        StringBuilder names = new StringBuilder();
+        for (int player = 1; player <= players; player++)
+            names.append(player > 1 ? "," : "").append("Player ").append(player);
+        properties.setProperty("PlayerNames", names.toString());
+        return properties;
+    }
+
+    /**
+     * Replays the records of a journal.
+     *
+     * @param journal - the journal positioned after the header.
+     * @throws InterruptedException - if interrupted while waiting between events of a user interface replay.
+     */
+    public void replay(ByteBuffer journal) throws InterruptedException {
+        JournalEvent[] types = JournalEvent.values();
+        long lastTime = Long.MIN_VALUE;
+        while (journal.remaining() >= BinaryJournal.RECORD_SIZE) {
+            int type = journal.get();
+            long time = journal.getLong();
+            int a = journal.getInt(), b = journal.getInt(), c = journal.getInt(), d = journal.getInt();
+            ++events;
+            if (type < 0 || type >= types.length) {
+                violation(time, "unknown event type " + type);
+                continue;
+            }
+            if (time < lastTime)
+                violation(time, "time went back from " + lastTime);
+            else if (ui != null && lastTime != Long.MIN_VALUE && time > lastTime)
+                Thread.sleep((long) ((time - lastTime) / speed));
+            lastTime = Math.max(lastTime, time);
+            apply(types[type], time, a, b, c, d);
+        }
+        if (journal.hasRemaining())
+            violation(lastTime, "truncated record at the end of the journal");
+    }
+
+    /**
+     * Applies an event to the replayed state and checks it.
+     *
+     * @param event - the event type.
+     * @param time  - the time of the event.
+     * @param a     - the first argument of the event.
+     * @param b     - the second argument of the event.
+     * @param c     - the third argument of the event.
+     * @param d     - the fourth argument of the event.
+     */
+    private void apply(JournalEvent event, long time, int a, int b, int c, int d) {
+        switch (event) {
+            case CARD_PLACED:
+                if (!validCard(time, a) || !validSlot(time, b)) return;
+                if (slotToCard[b] != null) violation(time, "card " + a + " placed on slot " + b + " holding card " + slotToCard[b]);
+                if (cardOnTable[a]) violation(time, "card " + a + " placed twice");
+                if (slotToCard[b] != null) cardOnTable[slotToCard[b]] = false;
+                slotToCard[b] = a;
+                cardOnTable[a] = true;
+                if (ui != null) ui.placeCard(a, b);
+                break;
+            case CARD_REMOVED:
+                if (!validCard(time, a) || !validSlot(time, b)) return;
+                if (slotToCard[b] == null || slotToCard[b] != a) violation(time, "card " + a + " removed from slot " + b + " holding " + slotToCard[b]);
+                slotToCard[b] = null;
+                cardOnTable[a] = false;
+                if (ui != null) ui.removeCard(b);
+                break;
+            case TOKEN_PLACED:
+                if (!validPlayer(time, a) || !validSlot(time, b)) return;
+                if (slotToCard[b] == null) violation(time, "player " + a + " placed a token on empty slot " + b);
+                if (tokens[a][b]) violation(time, "player " + a + " placed a second token on slot " + b);
+                tokens[a][b] = true;
+                if (countTokens(a) > config.featureSize) violation(time, "player " + a + " has more than " + config.featureSize + " tokens");
+                if (ui != null) ui.placeToken(a, b);
+                break;
+            case TOKEN_REMOVED:
+                if (!validPlayer(time, a) || !validSlot(time, b)) return;
+                if (!tokens[a][b]) violation(time, "player " + a + " removed a missing token from slot " + b);
+                tokens[a][b] = false;
+                if (ui != null) ui.removeToken(a, b);
+                break;
+            case TOKENS_CLEARED:
+                if (!validSlot(time, a)) return;
+                for (boolean[] playerTokens : tokens)
+                    playerTokens[a] = false;
+                if (ui != null) ui.removeTokens(a);
+                break;
+            case CLAIM_SUBMITTED:
+                // a token may be cleared while the claim is submitted (slot -1), such a claim must not be valid
+                if (!validPlayer(time, a)) return;
+                for (int slot : new int[]{b, c, d})
+                    if (slot != -1 && (!validSlot(time, slot) || !tokens[a][slot]))
+                        violation(time, "player " + a + " claimed slot " + slot + " without a token on it");
+                if (pendingClaims[a] != null) violation(time, "player " + a + " claimed again before a verdict");
+                pendingClaims[a] = new int[]{b, c, d};
+                break;
+            case CLAIM_VERDICT:
+                if (!validPlayer(time, a)) return;
+                if (pendingClaims[a] == null) {
+                    violation(time, "verdict for player " + a + " without a claim");
+                    return;
+                }
+                if (b == Claim.Verdict.VALID.ordinal()) {
+                    checkValidClaim(time, a, pendingClaims[a]);
+                    ++pendingPoints[a];
+                }
+                pendingClaims[a] = null;
+                break;
+            case SCORE:
+                if (!validPlayer(time, a)) return;
+                if (pendingPoints[a] == 0) violation(time, "player " + a + " scored without a valid claim");
+                else --pendingPoints[a];
+                if (b != scores[a] + 1) violation(time, "player " + a + " score went from " + scores[a] + " to " + b);
+                scores[a] = b;
+                if (ui != null) ui.setScore(a, b);
+                break;
+            case FREEZE:
+                if (!validPlayer(time, a)) return;
+                if (ui != null) ui.setFreeze(a, b);
+                break;
+            case RESHUFFLE:
+                break;
+        }
+    }
+
+    /**
+     * Checks that the cards of a claim declared valid by the dealer are on the table and form a legal set.
+     */
+    private void checkValidClaim(long time, int player, int[] slots) {
+        int[] cards = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0 || slots[i] >= slotToCard.length) {
+                violation(time, "valid claim of player " + player + " on illegal slot " + slots[i]);
+                return;
+            }
+            if (slotToCard[slots[i]] == null) {
+                violation(time, "valid claim of player " + player + " on empty slot " + slots[i]);
+                return;
+            }
+            if (!tokens[player][slots[i]]) violation(time, "valid claim of player " + player + " without a token on slot " + slots[i]);
+            cards[i] = slotToCard[slots[i]];
+        }
+        if (!util.testSet(cards)) violation(time, "player " + player + " was awarded an illegal set");
+    }
+
+    private int countTokens(int player) {
+        int count = 0;
+        for (boolean token : tokens[player])
+            if (token) ++count;
+        return count;
+    }
+
+    private boolean validCard(long time, int card) {
+        if (card >= 0 && card < config.deckSize) return true;
+        violation(time, "illegal card " + card);
+        return false;
+    }
+
+    private boolean validSlot(long time, int slot) {
+        if (slot >= 0 && slot < config.tableSize) return true;
+        violation(time, "illegal slot " + slot);
+        return false;
+    }
+
+    private boolean validPlayer(long time, int player) {
+        if (player >= 0 && player < config.players) return true;
+        violation(time, "illegal player " + player);
+        return false;
+    }
+
+    private void violation(long time, String message) {
+        if (violations.size() < MAX_REPORTED)
+            violations.add("[" + time + "] event " + events + ": " + message);
+        else
+            violations.add(null); // counted, not reported
+    }
+
+    /**
+     * @return - a summary of the replay (the final scores and the violations found).
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("replayed ").append(events).append(" events").append(System.lineSeparator());
+        for (int player = 0; player < scores.length; player++)
+            sb.append(config.playerNames[player]).append(": ").append(scores[player]).append(System.lineSeparator());
+        sb.append(violations.size()).append(" violations").append(System.lineSeparator());
+        for (String violation : violations) {
+            if (violation == null) {
+                sb.append("...").append(System.lineSeparator());
+                break;
+            }
+            sb.append("  ").append(violation).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values (e.g. latencies in nanoseconds) with log-linear buckets, in the style
+ * of HdrHistogram: values below 2 * SUB_BUCKETS are counted exactly, larger values are counted in SUB_BUCKETS linear
+ * buckets per power of 2, so every value is known to within 1 / SUB_BUCKETS (about 3%) of itself.
+ * Recording is a single atomic increment, so any thread may record while others read.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value - the value to record (negative values are recorded as 0).
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return - the number of recorded values.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return - the sum of the recorded values.
+     */
+    public long total() {
+        return total.get();
+    }
+
+    /**
+     * @return - the largest recorded value (0 if none).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return - the mean of the recorded values (0 if none).
+     */
+    public double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * @param percentile - the percentile (between 0 and 100).
+     * @return - the highest value equivalent to the value at the given percentile (0 if no values were recorded).
+     */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestEquivalent(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * @param value - a non-negative value.
+     * @return - the index of the bucket of the value.
+     */
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @param index - the index of a bucket.
+     * @return - the highest value counted in the bucket.
+     */
+    static long highestEquivalent(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
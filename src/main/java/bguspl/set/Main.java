@@ -1,9 +1,5 @@
 package bguspl.set;
 
-import bguspl.set.ex.Dealer;
-import bguspl.set.ex.Player;
-import bguspl.set.ex.Table;
-
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
@@ -17,19 +13,6 @@ import java.util.logging.*;
  */
 public class Main {
 
-    private static Dealer dealer;
-    private static Thread mainThread;
-
-    private static boolean xButtonPressed = false;
-    private static Logger logger;
-
-    public static void xButtonPressed() throws InterruptedException {
-        if (logger != null) logger.severe("exit button pressed");
-        xButtonPressed = true;
-        if (dealer != null) dealer.terminate();
-        mainThread.join();
-    }
-
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
@@ -37,48 +20,59 @@ public class Main {
      */
     public static void main(String[] args) {
 
-        mainThread = Thread.currentThread();
-
         // create the game environment objects
-        logger = initLogger();
+        Logger logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
         Util util = new UtilImpl(config);
-
-        Player[] players = new Player[config.players];
-        UserInterface ui = null;
-        try {
-            ui = new UserInterfaceSwing(logger, config, players);
-        } catch (UnsupportedOperationException | IllegalArgumentException e) {
-            logger.severe("error creating swing user interface: " + e.getMessage());
-            logger.severe("will try to run without user interface");
-            if (config.humanPlayers > 0)
-                logger.severe("warning: running with human players with no user interface");
+        AsyncLogWriter logWriter = config.logQueueCapacity > 0
+                ? new AsyncLogWriter(logger, config.logQueueCapacity, config.logQueueBlock) : null;
+        if (config.simulation) {
+            simulate(logger, config, util, logWriter);
+            return;
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
-
-        Env env = new Env(logger, config, ui, util);
 
         // create the game entities
-        Table table = new Table(env);
-        dealer = new Dealer(env, table, players);
-        for (int i = 0; i < players.length; i++)
-            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
-
-        // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        Game game = new Game(logger, config, util, logWriter);
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
-            if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
+            game.play();
+            if (!game.isXButtonPressed() && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
-            if (!xButtonPressed) env.ui.dispose();
+            if (!game.isXButtonPressed()) game.getEnv().ui.dispose();
+            if (logWriter != null) logWriter.close();
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+
+    /**
+     * Runs a tournament of config.simulationGames headless games, config.simulationThreads of them at a time, and
+     * reports the results.
+     *
+     * @param logger    - the game logger.
+     * @param config    - the game configuration (config.simulation is true).
+     * @param util      - the game utilities.
+     * @param logWriter - the background writer for the user interface log (null to log synchronously).
+     */
+    private static void simulate(Logger logger, Config config, Util util, AsyncLogWriter logWriter) {
+        if (config.humanPlayers > 0)
+            logger.severe("warning: running a simulation with human players that can not provide any input");
+
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null, logWriter), util);
+        Tournament tournament = new Tournament(env, config.simulationGames, config.simulationThreads);
+        try {
+            String summary = tournament.run();
+            logger.severe(summary);
+            System.out.print(summary);
+        } catch (InterruptedException ignored) {
+        } finally {
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            if (logWriter != null) logWriter.close();
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
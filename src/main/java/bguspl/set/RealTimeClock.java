@@ -0,0 +1,30 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The implementation of the GameClock interface using the system (wall clock) time.
+ */
+public class RealTimeClock implements GameClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis > 0) Thread.sleep(millis);
+    }
+
+    @Override
+    public void awaitUntil(long deadline) throws InterruptedException {
+        sleep(deadline - currentTimeMillis());
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeoutMillis) throws InterruptedException {
+        return queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
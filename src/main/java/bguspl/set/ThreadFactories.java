@@ -0,0 +1,60 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Creates the thread factories for the player and computer (AI) threads.
+ * Virtual threads are looked up at runtime so the project still compiles for (and runs on) Java 8: on a runtime
+ * without virtual threads (before Java 21) the players fall back to platform threads.
+ */
+public final class ThreadFactories {
+
+    /**
+     * The virtual thread factory of the running JVM (null if virtual threads are not supported).
+     */
+    private static final ThreadFactory VIRTUAL = lookupVirtualThreadFactory();
+
+    /**
+     * True iff the missing virtual thread support was already reported (every game creates its own environment).
+     */
+    private static final AtomicBoolean reported = new AtomicBoolean();
+
+    private ThreadFactories() {
+    }
+
+    /**
+     * @param config - the game configuration.
+     * @param logger - the logger to report a missing virtual thread support to.
+     * @return - a virtual thread factory if config.virtualThreads is set and supported, a platform thread factory otherwise.
+     */
+    public static ThreadFactory forConfig(Config config, Logger logger) {
+        if (!config.virtualThreads) return Executors.defaultThreadFactory();
+        if (VIRTUAL != null) return VIRTUAL;
+        if (!reported.getAndSet(true))
+            logger.severe("virtual threads are not supported by java " + System.getProperty("java.version")
+                    + " (21 or newer is required), using platform threads");
+        return Executors.defaultThreadFactory();
+    }
+
+    /**
+     * @return - true iff the running JVM supports virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return VIRTUAL != null;
+    }
+
+    private static ThreadFactory lookupVirtualThreadFactory() {
+        try {
+            // Thread.ofVirtual().factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
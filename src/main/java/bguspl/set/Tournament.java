@@ -0,0 +1,113 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.String.format;
+
+/**
+ * Runs many independent headless games concurrently and summarizes their results.
+ */
+public class Tournament {
+
+    /**
+     * The environment objects shared by all the games (each game gets its own clock).
+     */
+    private final Env env;
+
+    /**
+     * The number of games to run.
+     */
+    private final int games;
+
+    /**
+     * The maximum number of games running at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * The class constructor.
+     *
+     * @param env         - the environment objects shared by all the games (should have no real user interface).
+     * @param games       - the number of games to run.
+     * @param parallelism - the maximum number of games running at the same time.
+     */
+    public Tournament(Env env, int games, int parallelism) {
+        this.env = env;
+        this.games = games;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs all the games and waits for them to finish.
+     *
+     * @return - a summary report of the tournament.
+     * @throws InterruptedException - if interrupted while waiting for the games.
+     */
+    public String run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<GameResult>> futures = new ArrayList<>(games);
+        long start = System.nanoTime();
+        try {
+            for (int game = 0; game < games; game++) {
+                String journalName = "game-" + (game + 1);
+                futures.add(executor.submit(() -> {
+                    GameClock clock = GameClock.forConfig(env.config);
+                    GameJournal journal = BinaryJournal.create(journalName, env.config, env.logger, clock);
+                    return new Game(new Env(env.logger, env.config, env.ui, env.util, clock, journal)).play();
+                }));
+            }
+
+            List<GameResult> results = new ArrayList<>(games);
+            for (Future<GameResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    env.logger.severe("game failed: " + e.getCause());
+                }
+            }
+            return summarize(results, (System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Aggregates the game results into a report.
+     *
+     * @param results - the results of the finished games.
+     * @param seconds - the wall clock time of the whole tournament.
+     * @return - the report text.
+     */
+    private String summarize(List<GameResult> results, double seconds) {
+        int players = env.config.players;
+        long[] totalScores = new long[players];
+        int[] wins = new int[players];
+        long totalMillis = 0, minMillis = Long.MAX_VALUE, maxMillis = 0;
+        for (GameResult result : results) {
+            for (int player = 0; player < players; player++)
+                totalScores[player] += result.scores[player];
+            for (int winner : result.winners)
+                wins[winner]++;
+            totalMillis += result.durationMillis;
+            minMillis = Math.min(minMillis, result.durationMillis);
+            maxMillis = Math.max(maxMillis, result.durationMillis);
+        }
+
+        int finished = results.size();
+        StringBuilder sb = new StringBuilder();
+        sb.append(format("tournament: %d/%d games finished in %.3f seconds (%.2f games per second, %d in parallel)%n",
+                finished, games, seconds, finished / seconds, parallelism));
+        if (finished == 0) return sb.toString();
+
+        sb.append(format("game duration: avg %d ms, min %d ms, max %d ms%n", totalMillis / finished, minMillis, maxMillis));
+        for (int player = 0; player < players; player++)
+            sb.append(format("%s: %d wins, %.2f average score%n",
+                    env.config.playerNames[player], wins[player], (double) totalScores[player] / finished));
+        return sb.toString();
+    }
+}
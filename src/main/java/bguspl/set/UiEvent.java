@@ -0,0 +1,95 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The user interface events logged by the UserInterfaceDecorator. Each event is recorded as a compact
+ * (arg, value, extra) tuple and only turned into a message when it is written to the log.
+ */
+enum UiEvent {
+
+    PLACE_CARD {
+        @Override
+        String message(int card, long slot, Object extra) {
+            return "placing card " + card + " in slot " + slot;
+        }
+    },
+    REMOVE_CARD {
+        @Override
+        String message(int slot, long unused, Object extra) {
+            return "removing card from slot " + slot;
+        }
+    },
+    PLACE_TOKEN {
+        @Override
+        String message(int player, long slot, Object extra) {
+            return "player " + (player + 1) + " placing token on slot " + slot;
+        }
+    },
+    REMOVE_ALL_TOKENS {
+        @Override
+        String message(int unused, long unused2, Object extra) {
+            return "removing all tokens";
+        }
+    },
+    REMOVE_TOKENS {
+        @Override
+        String message(int slot, long unused, Object extra) {
+            return "removing tokens from slot " + slot;
+        }
+    },
+    REMOVE_TOKEN {
+        @Override
+        String message(int player, long slot, Object extra) {
+            return "removing player " + (player + 1) + " token from slot " + slot;
+        }
+    },
+    SET_COUNTDOWN {
+        @Override
+        String message(int unused, long millies, Object extra) {
+            return "updating countdown to " + millies;
+        }
+    },
+    SET_ELAPSED {
+        @Override
+        String message(int unused, long millies, Object extra) {
+            return "updating elapsed time to " + millies;
+        }
+    },
+    SET_FREEZE {
+        @Override
+        String message(int player, long millies, Object extra) {
+            return "setting player " + (player + 1) + " freeze to " + millies;
+        }
+    },
+    SET_SCORE {
+        @Override
+        String message(int player, long score, Object extra) {
+            return "setting player " + (player + 1) + " score to " + score;
+        }
+    },
+    ANNOUNCE_WINNER {
+        @Override
+        String message(int unused, long unused2, Object players) {
+            return "announcing winner(s): " + Arrays.stream((int[]) players).mapToObj(id -> "player " + (id + 1))
+                    .collect(Collectors.joining(", "));
+        }
+    },
+    DISPOSE {
+        @Override
+        String message(int unused, long unused2, Object extra) {
+            return "disposing of user interface elements";
+        }
+    };
+
+    /**
+     * Formats the log message of the event.
+     *
+     * @param arg   - the first argument of the event (e.g. the player or the card).
+     * @param value - the second argument of the event (e.g. the slot or the milliseconds).
+     * @param extra - an additional argument object (for the rare events that need one).
+     * @return - the log message.
+     */
+    abstract String message(int arg, long value, Object extra);
+}
@@ -1,9 +1,6 @@
 package bguspl.set;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class UserInterfaceDecorator implements UserInterface {
 
@@ -11,52 +8,67 @@ public class UserInterfaceDecorator implements UserInterface {
     private final Util util;
     private final UserInterface ui;
 
+    /**
+     * Writes the events to the log in the background (null to log synchronously).
+     */
+    private final AsyncLogWriter logWriter;
+
     public UserInterfaceDecorator(Logger logger, Util util, UserInterface ui) {
+        this(logger, util, ui, null);
+    }
+
+    public UserInterfaceDecorator(Logger logger, Util util, UserInterface ui, AsyncLogWriter logWriter) {
         this.ui = ui;
         this.logger = logger;
         this.util = util;
+        this.logWriter = logWriter;
 
         if (ui == null) System.out.println("running without a user interface. Check logs.");
     }
 
+    private void log(UiEvent event, int arg, long value, Object extra) {
+        if (logWriter != null) logWriter.log(event, arg, value, extra);
+        else logger.severe(event.message(arg, value, extra));
+    }
+
     @Override
     public void placeCard(int card, int slot) {
-        logger.severe("placing card " + card + " in slot " + slot);
+        log(UiEvent.PLACE_CARD, card, slot, null);
         util.spin();
         if (ui != null) ui.placeCard(card, slot);
     }
 
     @Override
     public void removeCard(int slot) {
-        logger.severe("removing card from slot " + slot);
+        log(UiEvent.REMOVE_CARD, slot, 0, null);
         util.spin();
         if (ui != null) ui.removeCard(slot);
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        logger.severe("player " + (player + 1) + " placing token on slot " + slot);
+        log(UiEvent.PLACE_TOKEN, player, slot, null);
         util.spin();
         if (ui != null) ui.placeToken(player, slot);
     }
 
     @Override
     public void removeTokens() {
-        logger.severe("removing all tokens");
+        log(UiEvent.REMOVE_ALL_TOKENS, 0, 0, null);
         util.spin();
         if (ui != null) ui.removeTokens();
     }
 
     @Override
     public void removeTokens(int slot) {
-        logger.severe("removing tokens from slot " + slot);
+        log(UiEvent.REMOVE_TOKENS, slot, 0, null);
         util.spin();
         if (ui != null) ui.removeTokens(slot);
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        logger.severe("removing player " + (player + 1) + " token from slot " + slot);
+        log(UiEvent.REMOVE_TOKEN, player, slot, null);
         util.spin();
         if (ui != null) ui.removeToken(player, slot);
     }
@@ -64,41 +76,40 @@ public class UserInterfaceDecorator implements UserInterface {
     @Override
     public void setCountdown(long millies, boolean warn) {
         if (!warn || millies % 1000L == 0L)
-            logger.severe("updating countdown to " + millies);
+            log(UiEvent.SET_COUNTDOWN, 0, millies, null);
         if (ui != null) ui.setCountdown(millies, warn);
     }
 
     @Override
     public void setElapsed(long millies) {
-        logger.severe("updating elapsed time to " + millies);
+        log(UiEvent.SET_ELAPSED, 0, millies, null);
         util.spin();
         if (ui != null) ui.setElapsed(millies);
     }
 
     @Override
     public void setFreeze(int player, long millies) {
-        logger.severe("setting player " + (player + 1) + " freeze to " + millies);
+        log(UiEvent.SET_FREEZE, player, millies, null);
         util.spin();
         if (ui != null) ui.setFreeze(player, millies);
     }
 
     @Override
     public void setScore(int player, int score) {
-        logger.severe("setting player " + (player + 1) + " score to " + score);
+        log(UiEvent.SET_SCORE, player, score, null);
         util.spin();
         if (ui != null) ui.setScore(player, score);
     }
 
     @Override
     public void announceWinner(int[] players) {
-        List<String> winners = Arrays.stream(players).mapToObj(id -> "player " + (id + 1)).collect(Collectors.toList());
-        logger.severe("announcing winner(s): " + String.join(", ", winners));
+        log(UiEvent.ANNOUNCE_WINNER, 0, 0, players.clone());
         if (ui != null) ui.announceWinner(players);
     }
 
     @Override
     public void dispose() {
-        logger.severe("disposing of user interface elements");
+        log(UiEvent.DISPOSE, 0, 0, null);
         if (ui != null) ui.dispose();
     }
 }
@@ -4,10 +4,9 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -15,6 +14,8 @@ import static java.lang.String.format;
 
 /**
  * Java Swing implementation of the UserInterface interface.
+ * The methods of the interface change swing components, so they must be called on the event dispatch thread (the
+ * game threads update the user interface through a BatchedUserInterface).
  */
 public class UserInterfaceSwing extends JFrame implements UserInterface {
 
@@ -28,11 +29,11 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         return format("%" + padding + "s", Integer.toString(n, base)).replace(' ', '0');
     }
 
-    public UserInterfaceSwing(Logger logger, Config config, Player[] players) {
+    public UserInterfaceSwing(Logger logger, Config config, Player[] players, Game game) {
 
         this.config = config;
         timerPanel = new TimerPanel();
-        gamePanel = new GamePanel();
+        gamePanel = new GamePanel(logger);
         playersPanel = new PlayersPanel();
         winnerPanel = new WinnerPanel();
 
@@ -64,7 +65,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         addKeyListener(new InputManager(logger, config, players));
-        addWindowListener(new WindowManager());
+        addWindowListener(new WindowManager(game));
 
         EventQueue.invokeLater(() -> setVisible(true));
     }
@@ -100,75 +101,76 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
     }
 
-    private class GamePanel extends JLayeredPane {
+    private class GamePanel extends JComponent {
 
-        private final Image emptyCard;
-        private final Image[] deck;
-        private final Image[][] grid;
-        private final boolean[][][] playerTokens;
-        private final JLabel[][] tokenText;
+        private final CardAtlas cards;
+        private final int[] slotCards; // the card on each slot (-1 if none)
 
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
+        /**
+         * The players with a token on each slot (tokenWords bitmask words per slot) and the token text of each slot,
+         * built when the slot is painted (null if it changed since).
+         */
+        private final int tokenWords;
+        private final long[] tokenMasks;
+        private final String[] tokenText;
+        private final StringBuilder textBuilder = new StringBuilder();
+
+        /**
+         * The text rendering hints of the desktop (the ones swing labels use), null if there are none.
+         */
+        private final Map<?, ?> textHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
 
-        private GamePanel() {
+        private GamePanel(Logger logger) {
 
             setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+            setFont(UIManager.getFont("Label.font"));
+            setForeground(UIManager.getColor("Label.foreground"));
+
+            // init the card images (loaded in the background, a card is repainted when its image is ready)
+            cards = new CardAtlas(config, logger, card -> EventQueue.invokeLater(() -> cardLoaded(card)));
+
+            // init the cards on the table grid as empty cards, with no tokens
+            slotCards = new int[config.tableSize];
+            Arrays.fill(slotCards, -1);
+            tokenWords = (config.players + Long.SIZE - 1) / Long.SIZE;
+            tokenMasks = new long[config.tableSize * tokenWords];
+            tokenText = new String[config.tableSize];
+            Arrays.fill(tokenText, "");
+        }
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
-
-            grid = new Image[config.rows][config.columns];
-            tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
-            for (int row = 0; row < config.rows; row++) {
-                for (int column = 0; column < config.columns; column++) {
-                    // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
-
-                    // init the JLabel selection overlay
-                    tokenText[row][column] = new JLabel("");
-                    tokenText[row][column].setVerticalAlignment(JLabel.TOP);
-                    tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
-                    tokenText[row][column].setOpaque(false);
-                    tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
-                    add(tokenText[row][column]);
-                }
-            }
+        /**
+         * Repaints the slots showing a card whose image became ready.
+         *
+         * @param card - the card id.
+         */
+        private void cardLoaded(int card) {
+            for (int slot = 0; slot < slotCards.length; slot++)
+                if (slotCards[slot] == card) repaintSlot(slot);
         }
 
         private void placeCard(int slot, int card) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            slotCards[slot] = card;
+            repaintSlot(slot);
         }
 
         private void removeCard(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            slotCards[slot] = -1;
+            repaintSlot(slot);
+        }
+
+        /**
+         * Repaints the cell of a slot (the repaint manager paints the cells changed by a batch of updates together).
+         *
+         * @param slot - the slot that changed.
+         */
+        private void repaintSlot(int slot) {
+            repaint((slot % config.columns) * config.cellWidth, (slot / config.columns) * config.cellHeight,
+                    config.cellWidth, config.cellHeight);
         }
 
         private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            tokenMasks[slot * tokenWords + player / Long.SIZE] |= 1L << player;
+            tokensChanged(slot);
         }
 
         private void removeTokens() {
@@ -177,38 +179,67 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+            Arrays.fill(tokenMasks, slot * tokenWords, (slot + 1) * tokenWords, 0);
+            tokensChanged(slot);
         }
 
         private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            tokenMasks[slot * tokenWords + player / Long.SIZE] &= ~(1L << player);
+            tokensChanged(slot);
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
-            }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+        private void tokensChanged(int slot) {
+            tokenText[slot] = null;
+            repaintSlot(slot);
+        }
+
+        /**
+         * @param slot - the slot.
+         * @return - the names of the players with a token on the slot, separated by commas.
+         */
+        private String playersTokenText(int slot) {
+            if (tokenText[slot] != null) return tokenText[slot];
+            textBuilder.setLength(0);
+            for (int word = slot * tokenWords, first = 0; word < (slot + 1) * tokenWords; word++, first += Long.SIZE)
+                for (long mask = tokenMasks[word]; mask != 0; mask &= mask - 1) {
+                    if (textBuilder.length() > 0) textBuilder.append(", ");
+                    textBuilder.append(config.playerNames[first + Long.numberOfTrailingZeros(mask)]);
+                }
+            return tokenText[slot] = textBuilder.toString();
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            // draw the cells inside the clip (only the changed cells on a partial repaint)
+            Rectangle clip = g.getClipBounds();
+            int firstRow = 0, lastRow = config.rows - 1, firstColumn = 0, lastColumn = config.columns - 1;
+            if (clip != null) {
+                firstRow = Math.max(firstRow, clip.y / config.cellHeight);
+                lastRow = Math.min(lastRow, (clip.y + clip.height - 1) / config.cellHeight);
+                firstColumn = Math.max(firstColumn, clip.x / config.cellWidth);
+                lastColumn = Math.min(lastColumn, (clip.x + clip.width - 1) / config.cellWidth);
+            }
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            for (int row = firstRow; row <= lastRow; row++)
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int slot = row * config.columns + column;
+                    int x = column * config.cellWidth, y = row * config.cellHeight;
+                    cards.drawCard(g, slotCards[slot], x, y);
+                    g.setColor(Color.black);
+                    g.drawRect(x, y, config.cellWidth - 1, config.cellHeight - 1);
+
+                    // draw the token text at the top of the cell, centered (or from the left if it does not fit)
+                    String text = playersTokenText(slot);
+                    if (text.isEmpty()) continue;
+                    int width = metrics.stringWidth(text);
+                    int textX = width < config.cellWidth - 2 ? x + (config.cellWidth - width) / 2 : x + 1;
+                    Graphics2D cell = (Graphics2D) g.create(x + 1, y + 1, config.cellWidth - 2, config.cellHeight - 2);
+                    if (textHints != null) cell.addRenderingHints(textHints);
+                    cell.setFont(getFont());
+                    cell.setColor(getForeground());
+                    cell.drawString(text, textX - x - 1, metrics.getAscent());
+                    cell.dispose();
+                }
         }
     }
 
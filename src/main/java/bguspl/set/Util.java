@@ -40,6 +40,15 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Computes the unique card that completes the given cards to a legal set.
+     *
+     * @param cards - an array of config.featureSize - 1 distinct card ids.
+     * @return - the card id completing the set, or -1 if no card can complete it (or, when config.featureSize is 2,
+     *           every other card does).
+     */
+    int completingCard(int[] cards);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
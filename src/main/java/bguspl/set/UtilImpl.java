@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
@@ -13,8 +14,46 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The sum of all possible values of a single feature (i.e. 0 + 1 + ... + config.featureSize - 1).
+     */
+    private final int featureSum;
+
+    /**
+     * The packed representation of every card (null if it does not fit in a long): each feature gets a lane of
+     * config.featureSize + 1 bits holding the feature value one-hot, the top bit of every lane is kept clear as a guard.
+     */
+    private final long[] packed;
+
+    /**
+     * The lowest bit and the guard bit of every lane in the packed representation.
+     */
+    private final long laneLowBits;
+    private final long laneGuardBits;
+
     public UtilImpl(Config config) {
         this.config = config;
+        this.featureSum = config.featureSize * (config.featureSize - 1) / 2;
+
+        int laneWidth = config.featureSize + 1;
+        long lowBits = 0, guardBits = 0;
+        long[] packed = null;
+        if (laneWidth * config.featureCount <= Long.SIZE) {
+            for (int i = 0; i < config.featureCount; ++i) {
+                lowBits |= 1L << (i * laneWidth);
+                guardBits |= 1L << (i * laneWidth + config.featureSize);
+            }
+            packed = new long[config.deckSize];
+            int[] features = new int[config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, features);
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed[card] |= 1L << (i * laneWidth + features[i]);
+            }
+        }
+        this.packed = packed;
+        this.laneLowBits = lowBits;
+        this.laneGuardBits = guardBits;
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,44 +79,96 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
-
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+        if (packed == null || cards.length != config.featureSize) return testSetByFeatures(cards);
+
+        long union = 0;
+        for (int card : cards)
+            union |= packed[card];
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+        // a feature is legal iff its lane has a single bit (sameSame) or all of its bits (butDifferent) set
+        long guards = (union + laneLowBits) & laneGuardBits;
+        long fullLanes = guards - (guards >>> config.featureSize);
+        return (union & (union - laneLowBits) & ~fullLanes) == 0;
+    }
 
+    /**
+     * Checks if an array of cards forms a legal set one feature at a time (used when the packed encoding does not
+     * fit in a long or the number of cards differs from config.featureSize).
+     */
+    private boolean testSetByFeatures(int[] cards) {
+        for (int i = 0, power = 1; i < config.featureCount; ++i, power *= config.featureSize) {
+            long seen = 0;
+            for (int card : cards)
+                seen |= 1L << (card / power % config.featureSize);
+            int distinct = Long.bitCount(seen);
+            boolean sameSame = distinct == 1, butDifferent = distinct == cards.length;
             if (sameSame == butDifferent) return false;
         }
         return true;
     }
 
+    @Override
+    public int completingCard(int[] cards) {
+        // with two values per feature every other card completes a single card, so none is unique
+        if (config.featureSize < 3) return -1;
+
+        int card = 0;
+        for (int i = 0, power = 1; i < config.featureCount; ++i, power *= config.featureSize) {
+            int first = cards[0] / power % config.featureSize;
+            boolean sameSame = true;
+            long seen = 0;
+            int sum = 0;
+            for (int other : cards) {
+                int feature = other / power % config.featureSize;
+                sameSame &= feature == first;
+                seen |= 1L << feature;
+                sum += feature;
+            }
+
+            // sameSame: the missing card repeats the feature, butDifferent: it takes the only value not seen yet
+            if (sameSame) card += first * power;
+            else if (Long.bitCount(seen) == cards.length) card += (featureSum - sum) * power;
+            else return -1;
+        }
+        return card;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
+        int[] cards = deck.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int n = cards.length;
+        int r = config.featureSize - 1;
+        if (r < 1 || n <= r) return sets;
+
+        if (r == 1) {
+            // with two values per feature, every feature of two distinct cards is either sameSame or butDifferent
+            for (int i = 0; i < n; ++i)
+                for (int j = i + 1; j < n; ++j) {
+                    sets.add(new int[]{cards[i], cards[j]});
+                    if (sets.size() >= count) return sets;
+                }
+            return sets;
+        }
+
+        BitSet present = new BitSet(config.deckSize);
+        for (int card : cards)
+            present.set(card);
 
-        for (int i = 0; i < r; ++i)
+        // enumerate all (featureSize - 1)-combinations, the last card of each set is computed rather than searched
+        int[] combination = new int[r];
+        int[] candidate = new int[r];
+        for (int i = 0; i < r; ++i) {
             combination[i] = i;
+            candidate[i] = cards[i];
+        }
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
+        while (combination[r - 1] < n) {
+            int last = completingCard(candidate);
+            if (last > candidate[r - 1] && present.get(last)) {
+                int[] set = Arrays.copyOf(candidate, r + 1);
+                set[r] = last;
+                sets.add(set);
                 if (sets.size() >= count) return sets;
             }
 
@@ -86,6 +177,8 @@ public class UtilImpl implements Util {
             while (t != 0 && combination[t] == n - r + t) --t;
             combination[t]++;
             for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            if (combination[r - 1] < n)
+                for (int i = t; i < r; i++) candidate[i] = cards[combination[i]];
         }
         return sets;
     }
@@ -0,0 +1,85 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The implementation of the GameClock interface using virtual time.
+ * Time only moves forward when a thread sleeps (i.e. spends time on its own work), when a poll times out or when
+ * advance is called explicitly, so games run as fast as the CPU allows.
+ * A poll waits a short real time (see pollMicros) for an element before letting its whole virtual timeout elapse, so
+ * how far the time moves depends on how fast the other threads run: the same game may play out differently from run
+ * to run. Only a single thread calling sleep and advance gets a reproducible time line.
+ */
+public class VirtualClock implements GameClock {
+
+    /**
+     * The current virtual time in milliseconds.
+     */
+    private volatile long now;
+
+    /**
+     * Guards the changes of the virtual time (a lock rather than a monitor so waiting virtual threads unmount).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+
+    /**
+     * How long (in real microseconds) poll waits for an element before letting the virtual timeout elapse.
+     */
+    private final long pollMicros;
+
+    public VirtualClock() {
+        this(100);
+    }
+
+    public VirtualClock(long pollMicros) {
+        this.pollMicros = pollMicros;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Moves the virtual time forward and wakes up the threads waiting for it.
+     *
+     * @param millis - the number of milliseconds to move forward.
+     */
+    public void advance(long millis) {
+        if (millis <= 0) return;
+        lock.lock();
+        try {
+            now += millis;
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sleep(long millis) {
+        advance(millis);
+    }
+
+    @Override
+    public void awaitUntil(long deadline) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (now < deadline)
+                advanced.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeoutMillis) throws InterruptedException {
+        E element = pollMicros > 0 ? queue.poll(pollMicros, TimeUnit.MICROSECONDS) : queue.poll();
+        if (element == null) advance(timeoutMillis);
+        return element;
+    }
+}
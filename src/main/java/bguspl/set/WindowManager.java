@@ -8,6 +8,12 @@ import java.awt.event.WindowListener;
  */
 public class WindowManager implements WindowListener {
 
+    private final Game game;
+
+    public WindowManager(Game game) {
+        this.game = game;
+    }
+
     @Override
     public void windowOpened(WindowEvent e) {
         // Auto-generated method stub
@@ -16,7 +22,7 @@ public class WindowManager implements WindowListener {
     @Override
     public void windowClosing(WindowEvent e) {
         try {
-            Main.xButtonPressed();
+            if (game != null) game.xButtonPressed();
         } catch (InterruptedException ignored) {}
     }
 
@@ -0,0 +1,148 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of key presses (slot ids) for a single producer thread (the input or AI thread of a player) and a
+ * single consumer thread (the player thread), backed by a primitive ring buffer so a key press allocates nothing.
+ * A thread that can not proceed (the consumer of an empty queue, the producer of a full one) parks until the other
+ * side unparks it.
+ * The queue may also be cleared by a third thread (the dealer): clearing marks the key presses queued so far as
+ * discarded, and the consumer skips them. The producer may wait until the consumer handled all the key presses it
+ * queued (see awaitHandled).
+ *
+ * @inv head <= tail <= head + capacity
+ */
+public class ActionQueue {
+
+    private final int capacity;
+    private final int[] buffer;
+    private final int mask;
+
+    /**
+     * The sequence number of the next key press to take (written by the consumer only), of the next key press to put
+     * (written by the producer only), and of the first key press that was not discarded by clear.
+     */
+    private volatile long head;
+    private volatile long tail;
+    private volatile long discardedUntil;
+
+    /**
+     * The sequence number of the first key press the consumer did not handle yet (written by the consumer only): the
+     * key presses before it were skipped, or taken and handled (the consumer came back for the next one).
+     */
+    private volatile long handled;
+
+    /**
+     * The threads parked waiting for a key press (consumer) or for free space (producer), null if none.
+     */
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the maximum number of queued key presses.
+     */
+    public ActionQueue(int capacity) {
+        this.capacity = capacity;
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Queues a key press if there is free space (producer only).
+     *
+     * @param slot - the slot pressed.
+     * @return - true iff the key press was queued.
+     */
+    public boolean offer(int slot) {
+        long t = tail;
+        if (t - head >= capacity) return false;
+        buffer[(int) t & mask] = slot;
+        tail = t + 1; // publishes the slot to the consumer
+        Thread consumer = waitingConsumer;
+        if (consumer != null) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Queues a key press, waiting for free space if necessary (producer only).
+     *
+     * @param slot - the slot pressed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void put(int slot) throws InterruptedException {
+        while (!offer(slot)) {
+            waitingProducer = Thread.currentThread();
+            if (tail - head >= capacity) LockSupport.park(this);
+            waitingProducer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Takes the next key press, waiting for one if necessary (consumer only).
+     *
+     * @return - the slot pressed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public int take() throws InterruptedException {
+        while (true) {
+            long h = head;
+            long discarded = discardedUntil;
+            if (h < discarded) head = h = discarded;
+            if (handled != h) {
+                handled = h; // asking for the next key press means the ones taken before were handled
+                unparkProducer();
+            }
+            if (h < tail) {
+                int slot = buffer[(int) h & mask];
+                head = h + 1; // frees the slot for the producer
+                unparkProducer();
+                return slot;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (head == tail) LockSupport.park(this);
+            waitingConsumer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Waits until the consumer handled all the key presses queued so far: it skipped them, or took them and asked for
+     * the next key press (producer only).
+     *
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void awaitHandled() throws InterruptedException {
+        while (handled < tail) {
+            waitingProducer = Thread.currentThread();
+            if (handled < tail) LockSupport.park(this);
+            waitingProducer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Discards the key presses queued so far (may be called by any thread).
+     */
+    public synchronized void clear() {
+        long t = tail;
+        if (t > discardedUntil) discardedUntil = t;
+    }
+
+    /**
+     * @return - the number of queued key presses that were not discarded.
+     */
+    public int size() {
+        long h = Math.max(head, discardedUntil);
+        return (int) Math.max(tail - h, 0);
+    }
+
+    private void unparkProducer() {
+        Thread producer = waitingProducer;
+        if (producer != null) LockSupport.unpark(producer);
+    }
+}
@@ -0,0 +1,58 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * An interface for the key press strategies of computer players.
+ * The AI thread of a computer player repeatedly asks its strategy for the next key press, and waits for the table
+ * to change when the strategy has nothing to press.
+ */
+public interface AiStrategy {
+
+    /**
+     * Returned by nextKeyPress when there is nothing to press until the table changes.
+     */
+    int WAIT = -1;
+
+    /**
+     * Chooses the next key press of the player.
+     *
+     * @param version - the version of the table (see Table::version) the choice is made for.
+     * @return - the slot to press, or WAIT to wait for the next change of the table.
+     * @throws InterruptedException - if interrupted while choosing (e.g. while simulating a reaction time).
+     */
+    int nextKeyPress(long version) throws InterruptedException;
+
+    /**
+     * @return - true iff the strategy chooses each key press from the player's tokens on the table, so the AI thread
+     * waits until the player handled a key press (and the claim and freeze it led to) before asking for the next one.
+     */
+    default boolean followsTokens() {
+        return false;
+    }
+
+    /**
+     * Creates the strategy configured for a computer player (see Config::computerStrategies).
+     *
+     * @param env    - the game environment objects.
+     * @param table  - the table of the game.
+     * @param player - the id of the player.
+     * @return - the strategy of the player.
+     */
+    static AiStrategy create(Env env, Table table, int player) {
+        int computer = player - env.config.humanPlayers;
+        String name = computer >= 0 && computer < env.config.computerStrategies.length
+                ? env.config.computerStrategies[computer] : "random";
+        switch (name) {
+            case "random":
+                return new RandomStrategy(table, env.config.tableSize);
+            case "oracle":
+                return new OracleStrategy(env, table, player);
+            case "skilled":
+                return new SkilledStrategy(env, table, player);
+            default:
+                env.logger.severe("unknown computer strategy " + name + " for player " + (player + 1) + ", using random");
+                return new RandomStrategy(table, env.config.tableSize);
+        }
+    }
+}
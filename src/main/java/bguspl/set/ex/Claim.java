@@ -0,0 +1,61 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class represents a set claimed by a player, waiting for the dealer's verdict.
+ */
+public class Claim {
+
+    /**
+     * The possible verdicts of the dealer.
+     */
+    public enum Verdict {
+        VALID,   // the cards form a legal set, the player gets a point
+        INVALID, // the cards do not form a legal set, the player gets a penalty
+        STALE    // the claim no longer applies (e.g. the tokens were removed), the player is not penalized
+    }
+
+    /**
+     * The player that claims the set.
+     */
+    public final Player player;
+
+    /**
+     * The claimed slots and their versions (see Table::slotVersion) when the claim was submitted.
+     */
+    final int[] slots;
+    final long[] slotVersions;
+
+    /**
+     * The (real) time the claim was submitted, in nanoseconds.
+     */
+    final long submitNanos = System.nanoTime();
+
+    /**
+     * Completed by the dealer with the verdict of the claim.
+     */
+    private final CompletableFuture<Verdict> verdict = new CompletableFuture<>();
+
+    public Claim(Player player, int[] slots, long[] slotVersions) {
+        this.player = player;
+        this.slots = slots;
+        this.slotVersions = slotVersions;
+    }
+
+    /**
+     * @return - a future that is completed with the verdict of the claim.
+     */
+    public CompletableFuture<Verdict> verdict() {
+        return verdict;
+    }
+
+    /**
+     * Completes the claim with the given verdict (does nothing if it already has one).
+     *
+     * @param verdict - the verdict of the claim.
+     */
+    public void complete(Verdict verdict) {
+        this.verdict.complete(verdict);
+    }
+}
@@ -1,14 +1,13 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
-import bguspl.set.Hand;
+import bguspl.set.JournalEvent;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -28,9 +27,14 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * The cards that are still in play (i.e. in the deck or on the table).
+     */
+    private final SetIndex cardsInPlay;
 
     /**
      * True iff game should be terminated.
@@ -42,12 +46,37 @@ public class Dealer implements Runnable {
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
+    /**
+     * The time when the countdown display changes next (the next whole second, or the next hundredth of a second
+     * during the warning period).
+     */
+    private long nextDisplayUpdate = Long.MAX_VALUE;
+
+    /**
+     * The ids of the winning players, set when the game is over.
+     */
+    private volatile int[] winners = new int[0];
+
+    /**
+     * The claim processing metrics of the game.
+     */
+    private final DealerMetrics metrics;
+
+    /**
+     * The number of claims decided together from which the claimed sets are validated in parallel.
+     */
+    private static final int PARALLEL_VALIDATION_THRESHOLD = 64;
+
 
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new Deck(env.config.deckSize, env.config.deckSeed >= 0 ? new Random(env.config.deckSeed) : new Random());
+        metrics = new DealerMetrics(players.length);
+        cardsInPlay = new SetIndex(env);
+        for (int card = 0; card < env.config.deckSize; card++)
+            cardsInPlay.add(card);
         this.terminate = false;
     }
 
@@ -57,8 +86,10 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        metrics.register(env.logger);
         for (Player p : players) {
-            Thread playerThread = new Thread(p);
+            Thread playerThread = env.threadFactory.newThread(p);
+            playerThread.setName("player-" + p.id);
             p.setPlayerThread(playerThread);
             p.getPlayerThread().start();
         }
@@ -70,21 +101,37 @@ public class Dealer implements Runnable {
             removeAllCardsFromTable();
         }
         announceWinners();
-        env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
 
-        for (Player p : players) {
-            p.terminateThread();
+        // release the players still waiting for a verdict
+        for (Claim claim = table.playersWithSet.poll(); claim != null; claim = table.playersWithSet.poll()) {
+            env.journal.record(JournalEvent.CLAIM_VERDICT, claim.player.id, Claim.Verdict.STALE.ordinal());
+            metrics.claimCompleted(claim, Claim.Verdict.STALE);
+            claim.complete(Claim.Verdict.STALE);
+        }
+
+        for (int i = players.length - 1; i >= 0; i--) {
+            players[i].terminateThread();
+            try {
+                players[i].getPlayerThread().join();
+            } catch (InterruptedException ignored) {
+            }
         }
+        env.logger.info(metrics.report(env.config.playerNames));
+        metrics.unregister();
+        env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * The inner loop of the dealer thread that runs as long as the countdown did not time out.
+     * The inner loop of the dealer thread that runs as long as the countdown did not time out and there is a set on
+     * the table.
      */
     private void timerLoop() {
-        this.reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        this.reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis;
+        this.nextDisplayUpdate = nextDisplayUpdate(env.clock.currentTimeMillis());
+        while (!terminate && env.clock.currentTimeMillis() < reshuffleTime && table.hasSet()) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
+            if (env.clock.currentTimeMillis() >= nextDisplayUpdate)
+                updateTimerDisplay(false);
         }
     }
 
@@ -102,34 +149,35 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !cardsInPlay.hasSet();
     }
 
     /**
      * Checks cards should be removed from the table and removes them.
+     *
+     * @param sets - the slots of the sets to replace (the sets do not overlap).
      */
-    private void replaceCardsFromTable(Hand hand) {
+    private void replaceCardsFromTable(List<int[]> sets) {
         // TODO implement
-        table.setTableReady(false);
-        for (int slot : hand.getSlotOfTokens()) {
-            if (slot != -1) {
-                synchronized (table.locks[slot]) {
-                    this.removeCard(slot);
+        int replaced = 0;
+        for (int[] set : sets) {
+            for (int slot : set) {
+                if (slot != -1) {
+                    ++replaced;
+                    beginSlotChange(slot);
+                    Integer card = table.slotToCard[slot];
+                    synchronized (table.locks[slot]) {
+                        this.removeCard(slot);
+                    }
+                    if (card != null) cardsInPlay.remove(card);
                 }
-                deck.remove(table.slotToCard[slot]);
-                for (Player p : players)
-                    p.updateHand(slot);
             }
         }
-        placeCardsOnTable(3);
-        table.setTableReady(true);
+        placeCardsOnTable(replaced);
     }
 
     public void removeCard(int slot) {
         table.removeCard(slot);
-        for (Player player : this.players) {
-            player.getHand().removeCardFromSet(slot);
-        }
     }
 
 
@@ -138,58 +186,114 @@ public class Dealer implements Runnable {
      */
     public void placeCardsOnTable(int numOfCardsToPlace) {
         // TODO implement
-        Random random = new Random();
-        int numOfCardToPlace = numOfCardsToPlace;
-        if (deck.size() < numOfCardsToPlace)
-            numOfCardToPlace = deck.size();
-
-        for (int slot = 0; slot < numOfCardToPlace; slot++) {
-            for (int i = 0; i < env.config.tableSize; i++) {
-                if (table.slotToCard[i] == null & deck.size() > 0) {
-                    Integer card = deck.get(random.nextInt(deck.size()));
-                    table.placeCard(card, i);
-                    deck.remove(card);
-                }
-            }
+        if (numOfCardsToPlace > 0) {
+            for (int slot = 0; slot < env.config.tableSize && !deck.isEmpty(); slot++)
+                if (table.slotToCard[slot] == null)
+                    table.placeCard(deck.draw(), slot);
         }
-        table.setTableReady(true);
+        endSlotChanges();
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the next timed event (countdown display update or reshuffle) or until a player claims a set.
      */
     private void sleepUntilWokenOrTimeout() {
         // TODO implement
-        Hand hand = null;
+        Claim claim = null;
         try {
-            boolean warning = this.isWarning();//?10:1000;
-            if (warning) {
-                hand = table.playersWithSet.poll(10, TimeUnit.MILLISECONDS);
-
-            } else
-                hand = table.playersWithSet.poll(1000, TimeUnit.MILLISECONDS);
+            long now = env.clock.currentTimeMillis();
+            claim = env.clock.poll(table.playersWithSet, Math.max(Math.min(nextDisplayUpdate, reshuffleTime) - now, 0));
         } catch (InterruptedException e) {
         }
-        if (hand != null) {
-            Player p = hand.getPlayer();
-            if (p.numOfTokens() >= 3 && !p.is_penalty()) {
-                int[] set = table.slotsToCardsArray(hand.getSlotOfTokens());//      ^ identify it by bool?
-                if (env.util.testSet(set)) {
-                    replaceCardsFromTable(hand);
-                    p.point();
-                    hand.resetHand();
-                } else {
-                    p.penalty();
-                }
-            }
-            synchronized (p) {
-                p.notify();
+        if (claim != null) {
+            List<Claim> claims = new ArrayList<>();
+            claims.add(claim);
+            table.playersWithSet.drainTo(claims);
+            arbitrateClaims(claims);
+        }
+    }
+
+    /**
+     * Decides all the pending claims in one pass: the claimed sets are validated (in parallel for large batches),
+     * every legal set that does not overlap a set accepted before it (in submission order) is awarded, the cards of
+     * all the awarded sets are replaced at once, and the remaining claims are penalized (illegal sets) or dismissed
+     * as stale (overlapping sets, or claims whose tokens are gone).
+     *
+     * @param claims - the pending claims, in submission order.
+     */
+    private void arbitrateClaims(List<Claim> claims) {
+        int count = claims.size();
+        int[][] slots = new int[count][];
+        int[][] sets = new int[count][]; // null if the claim is stale
+        for (int i = 0; i < count; i++) {
+            Claim claim = claims.get(i);
+            Player p = claim.player;
+            slots[i] = claim.slots;
+            if (p.numOfTokens() >= 3 && !p.is_penalty() && table.unchangedSince(claim) && table.holdsTokens(p.id, slots[i]))
+                sets[i] = table.slotsToCardsArray(slots[i]);
+        }
+
+        boolean[] legal = new boolean[count];
+        long validationStart = System.nanoTime();
+        IntStream validation = IntStream.range(0, count);
+        if (count >= PARALLEL_VALIDATION_THRESHOLD) validation = validation.parallel();
+        validation.forEach(i -> legal[i] = sets[i] != null && env.util.testSet(sets[i]));
+        metrics.validated(System.nanoTime() - validationStart);
+
+        Claim.Verdict[] verdicts = new Claim.Verdict[count];
+        boolean[] awardedSlots = new boolean[env.config.tableSize];
+        List<int[]> awarded = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (sets[i] == null)
+                verdicts[i] = Claim.Verdict.STALE;
+            else if (!legal[i])
+                verdicts[i] = Claim.Verdict.INVALID;
+            else if (overlaps(awardedSlots, slots[i]))
+                verdicts[i] = Claim.Verdict.STALE;
+            else {
+                verdicts[i] = Claim.Verdict.VALID;
+                for (int slot : slots[i])
+                    awardedSlots[slot] = true;
+                awarded.add(slots[i]);
             }
+            // recorded before the cards are replaced so a replay sees the claimed cards on the table
+            env.journal.record(JournalEvent.CLAIM_VERDICT, claims.get(i).player.id, verdicts[i].ordinal());
         }
+
+        if (!awarded.isEmpty())
+            replaceCardsFromTable(awarded);
+
+        for (int i = 0; i < count; i++) {
+            Claim claim = claims.get(i);
+            Player p = claim.player;
+            if (verdicts[i] == Claim.Verdict.VALID)
+                p.point();
+            else if (verdicts[i] == Claim.Verdict.INVALID)
+                p.penalty();
+            metrics.claimCompleted(claim, verdicts[i]);
+            claim.complete(verdicts[i]);
+        }
+    }
+
+    private static boolean overlaps(boolean[] taken, int[] slots) {
+        for (int slot : slots)
+            if (taken[slot])
+                return true;
+        return false;
     }
 
-    private boolean isWarning() {
-        return (reshuffleTime - System.currentTimeMillis()) < env.config.turnTimeoutWarningMillis;
+    /**
+     * Computes when the countdown display changes next.
+     *
+     * @param now - the current time in milliseconds.
+     * @return - the time of the next display change.
+     */
+    private long nextDisplayUpdate(long now) {
+        long remaining = reshuffleTime - now;
+        long warningStart = reshuffleTime - env.config.turnTimeoutWarningMillis;
+        long resolution = remaining <= env.config.turnTimeoutWarningMillis ? 10 : 1000;
+        long step = remaining % resolution == 0 ? resolution : remaining % resolution;
+        return now < warningStart ? Math.min(now + step, warningStart) : now + step;
     }
 
 
@@ -199,10 +303,13 @@ public class Dealer implements Runnable {
     private void updateTimerDisplay(boolean reset) {
         // TODO implement
         if (reset) {
-            reshuffleTime = env.config.turnTimeoutMillis + System.currentTimeMillis();
+            reshuffleTime = env.config.turnTimeoutMillis + env.clock.currentTimeMillis();
+            nextDisplayUpdate = nextDisplayUpdate(env.clock.currentTimeMillis());
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
         } else {
-            long time = reshuffleTime - System.currentTimeMillis();
+            long now = env.clock.currentTimeMillis();
+            long time = reshuffleTime - now;
+            nextDisplayUpdate = nextDisplayUpdate(now);
             env.ui.setCountdown(
                     time,
                     time < env.config.turnTimeoutWarningMillis);
@@ -215,8 +322,10 @@ public class Dealer implements Runnable {
      */
     public void removeAllCardsFromTable() {
         // TODO implement
-        table.setTableReady(false);
+        env.journal.record(JournalEvent.RESHUFFLE, 0, 0);
+        metrics.reshuffled();
         for (int slot = 0; slot < env.config.tableSize; slot++) {
+            beginSlotChange(slot);
             Integer card = table.slotToCard[slot];
             if (card != null) {
                 synchronized (table.locks[slot]) {
@@ -243,9 +352,42 @@ public class Dealer implements Runnable {
                 winners.add(p);
         }
         int[] winnersToAnnounce = new int[winners.size()];
-        for (int i = 0; i < winners.size(); i++) {
+        for (int i = 0; i < winnersToAnnounce.length; i++) {
             winnersToAnnounce[i] = winners.poll().id;
         }
+        this.winners = winnersToAnnounce;
         env.ui.announceWinner(winnersToAnnounce);
     }
+
+    /**
+     * Makes a slot unavailable to the players until endSlotChanges is called (does nothing if it already is).
+     *
+     * @param slot - the slot to change.
+     */
+    private void beginSlotChange(int slot) {
+        if (table.isSlotChanging(slot)) return;
+        table.beginSlotChange(slot);
+        metrics.tableReady(false);
+    }
+
+    /**
+     * Makes all the changed slots available to the players again.
+     */
+    private void endSlotChanges() {
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.isSlotChanging(slot))
+                table.endSlotChange(slot);
+        metrics.tableReady(true);
+    }
+
+    public DealerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return - the ids of the winning players (empty until the game is over).
+     */
+    public int[] getWinners() {
+        return winners;
+    }
 }
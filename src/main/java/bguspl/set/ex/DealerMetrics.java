@@ -0,0 +1,255 @@
+package bguspl.set.ex;
+
+import bguspl.set.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * This class collects the claim processing metrics of a dealer: verdict counters, points and penalties per player,
+ * reshuffles, and latency histograms of the claims (from submission to verdict), of their validation and of the
+ * windows in which slots of the table are not available to the players (while the dealer changes them).
+ * The metrics are recorded by the dealer thread, exposed as a JMX MBean while the game runs and reported at its end.
+ * All the times are measured in real (wall clock) nanoseconds, also in simulation mode.
+ */
+public class DealerMetrics implements DealerMetricsMBean {
+
+    /**
+     * Numbers the dealers of the JVM (several games may run at the same time).
+     */
+    private static final AtomicInteger dealers = new AtomicInteger();
+
+    private final ObjectName name;
+
+    private final AtomicLong validClaims = new AtomicLong();
+    private final AtomicLong invalidClaims = new AtomicLong();
+    private final AtomicLong staleClaims = new AtomicLong();
+    private final AtomicLong reshuffles = new AtomicLong();
+    private final AtomicLongArray points;
+    private final AtomicLongArray penalties;
+
+    private final LatencyHistogram claimLatency = new LatencyHistogram();
+    private final LatencyHistogram validationTime = new LatencyHistogram();
+    private final LatencyHistogram tableUnavailable = new LatencyHistogram();
+
+    /**
+     * The time the first slot became unavailable (-1 if all the slots are available). Only used by the dealer thread.
+     */
+    private long unavailableSince = -1;
+
+    /**
+     * The class constructor.
+     *
+     * @param players - the number of players in the game.
+     */
+    public DealerMetrics(int players) {
+        points = new AtomicLongArray(players);
+        penalties = new AtomicLongArray(players);
+        ObjectName objectName = null;
+        try {
+            objectName = new ObjectName("bguspl.set:type=DealerMetrics,name=dealer-" + dealers.incrementAndGet());
+        } catch (JMException ignored) {
+        }
+        name = objectName;
+    }
+
+    /**
+     * Records the verdict of a claim.
+     *
+     * @param claim   - the claim.
+     * @param verdict - the verdict of the dealer.
+     */
+    public void claimCompleted(Claim claim, Claim.Verdict verdict) {
+        claimLatency.record(System.nanoTime() - claim.submitNanos);
+        int player = claim.player.id;
+        switch (verdict) {
+            case VALID:
+                validClaims.incrementAndGet();
+                points.incrementAndGet(player);
+                break;
+            case INVALID:
+                invalidClaims.incrementAndGet();
+                penalties.incrementAndGet(player);
+                break;
+            case STALE:
+                staleClaims.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * Records the time it took to validate a claimed set.
+     *
+     * @param nanos - the validation time in nanoseconds.
+     */
+    public void validated(long nanos) {
+        validationTime.record(nanos);
+    }
+
+    /**
+     * Records a change of the availability of the table.
+     *
+     * @param ready - true iff all the slots of the table are available to the players.
+     */
+    public void tableReady(boolean ready) {
+        if (!ready && unavailableSince < 0)
+            unavailableSince = System.nanoTime();
+        else if (ready && unavailableSince >= 0) {
+            tableUnavailable.record(System.nanoTime() - unavailableSince);
+            unavailableSince = -1;
+        }
+    }
+
+    public void reshuffled() {
+        reshuffles.incrementAndGet();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @param logger - the logger to report a failure to.
+     */
+    public void register(Logger logger) {
+        try {
+            if (name != null) ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warning("cannot register dealer metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server (does nothing if they are not registered).
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (name != null && server.isRegistered(name)) server.unregisterMBean(name);
+        } catch (JMException ignored) {
+        }
+    }
+
+    /**
+     * @param playerNames - the names of the players.
+     * @return - a readable summary of the metrics.
+     */
+    public String report(String[] playerNames) {
+        StringBuilder sb = new StringBuilder("dealer metrics: ")
+                .append(getClaims()).append(" claims (").append(validClaims.get()).append(" valid, ")
+                .append(invalidClaims.get()).append(" invalid, ").append(staleClaims.get()).append(" stale), ")
+                .append(reshuffles.get()).append(" reshuffles").append(System.lineSeparator());
+        sb.append(String.format("  claim latency (us): mean %.1f, p50 %d, p99 %d, max %d%n",
+                getClaimLatencyMeanMicros(), getClaimLatencyP50Micros(), getClaimLatencyP99Micros(), getClaimLatencyMaxMicros()));
+        sb.append(String.format("  validation (us): p50 %d, p99 %d, max %d%n",
+                getValidationP50Micros(), getValidationP99Micros(), getValidationMaxMicros()));
+        sb.append(String.format("  table unavailable: %d windows, %d ms total, p99 %d us%n",
+                getTableUnavailableWindows(), getTableUnavailableMillis(), getTableUnavailableP99Micros()));
+        for (int player = 0; player < points.length(); player++)
+            sb.append("  ").append(player < playerNames.length ? playerNames[player] : "player " + (player + 1))
+                    .append(": ").append(points.get(player)).append(" points, ")
+                    .append(penalties.get(player)).append(" penalties").append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = array.get(i);
+        return values;
+    }
+
+    @Override
+    public long getClaims() {
+        return validClaims.get() + invalidClaims.get() + staleClaims.get();
+    }
+
+    @Override
+    public long getValidClaims() {
+        return validClaims.get();
+    }
+
+    @Override
+    public long getInvalidClaims() {
+        return invalidClaims.get();
+    }
+
+    @Override
+    public long getStaleClaims() {
+        return staleClaims.get();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles.get();
+    }
+
+    @Override
+    public long[] getPoints() {
+        return toArray(points);
+    }
+
+    @Override
+    public long[] getPenalties() {
+        return toArray(penalties);
+    }
+
+    @Override
+    public double getClaimLatencyMeanMicros() {
+        return claimLatency.mean() / 1000;
+    }
+
+    @Override
+    public long getClaimLatencyP50Micros() {
+        return micros(claimLatency.percentile(50));
+    }
+
+    @Override
+    public long getClaimLatencyP99Micros() {
+        return micros(claimLatency.percentile(99));
+    }
+
+    @Override
+    public long getClaimLatencyMaxMicros() {
+        return micros(claimLatency.max());
+    }
+
+    @Override
+    public long getValidationP50Micros() {
+        return micros(validationTime.percentile(50));
+    }
+
+    @Override
+    public long getValidationP99Micros() {
+        return micros(validationTime.percentile(99));
+    }
+
+    @Override
+    public long getValidationMaxMicros() {
+        return micros(validationTime.max());
+    }
+
+    @Override
+    public long getTableUnavailableWindows() {
+        return tableUnavailable.count();
+    }
+
+    @Override
+    public long getTableUnavailableMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tableUnavailable.total());
+    }
+
+    @Override
+    public long getTableUnavailableP99Micros() {
+        return micros(tableUnavailable.percentile(99));
+    }
+}
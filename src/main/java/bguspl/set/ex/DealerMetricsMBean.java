@@ -0,0 +1,42 @@
+package bguspl.set.ex;
+
+/**
+ * The JMX management interface of the dealer metrics (see DealerMetrics).
+ * Latencies are in microseconds, the table unavailable time is in milliseconds.
+ */
+public interface DealerMetricsMBean {
+
+    long getClaims();
+
+    long getValidClaims();
+
+    long getInvalidClaims();
+
+    long getStaleClaims();
+
+    long getReshuffles();
+
+    long[] getPoints();
+
+    long[] getPenalties();
+
+    double getClaimLatencyMeanMicros();
+
+    long getClaimLatencyP50Micros();
+
+    long getClaimLatencyP99Micros();
+
+    long getClaimLatencyMaxMicros();
+
+    long getValidationP50Micros();
+
+    long getValidationP99Micros();
+
+    long getValidationMaxMicros();
+
+    long getTableUnavailableWindows();
+
+    long getTableUnavailableMillis();
+
+    long getTableUnavailableP99Micros();
+}
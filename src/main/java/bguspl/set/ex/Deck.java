@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * The dealer's deck: a set of card ids kept in a primitive array, with constant time random draws (swap with the
+ * last card), returns and membership checks, and no allocation after construction.
+ *
+ * @inv cards[positions[x]] == x iff positions[x] != -1
+ * @inv 0 <= size <= cards.length
+ */
+public class Deck {
+
+    /**
+     * The cards in the deck (the first size entries) and the position of each card in it (-1 if none).
+     */
+    private final int[] cards;
+    private final int[] positions;
+    private int size;
+
+    private final Random random;
+
+    /**
+     * The class constructor. Creates a full deck.
+     *
+     * @param deckSize - the number of cards in the game.
+     * @param random   - the random number generator used for drawing cards.
+     */
+    public Deck(int deckSize, Random random) {
+        this.cards = new int[deckSize];
+        this.positions = new int[deckSize];
+        this.random = random;
+        for (int card = 0; card < deckSize; card++) {
+            cards[card] = card;
+            positions[card] = card;
+        }
+        size = deckSize;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - true iff the card is in the deck.
+     */
+    public boolean contains(int card) {
+        return positions[card] != -1;
+    }
+
+    /**
+     * Removes a uniformly random card from the deck.
+     *
+     * @return - the card drawn.
+     * @pre - the deck is not empty.
+     */
+    public int draw() {
+        int card = cards[random.nextInt(size)];
+        remove(card);
+        return card;
+    }
+
+    /**
+     * Returns a card to the deck (does nothing if it is already in the deck).
+     *
+     * @param card - the card id.
+     */
+    public void add(int card) {
+        if (positions[card] != -1) return;
+        cards[size] = card;
+        positions[card] = size++;
+    }
+
+    /**
+     * Removes a card from the deck.
+     *
+     * @param card - the card id.
+     * @return - true iff the card was in the deck.
+     */
+    public boolean remove(int card) {
+        int position = positions[card];
+        if (position == -1) return false;
+        int last = cards[--size];
+        cards[position] = last;
+        positions[last] = position;
+        positions[card] = -1;
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A computer player strategy that always goes for a legal set on the table.
+ * Whenever the table changes (once the dealer is done changing it) the strategy plans a set to claim. Each key press
+ * is chosen from the player's tokens on the table at the time: a token that is not part of the planned set is taken
+ * back first, then a token is placed on a planned slot that has none. The AI thread waits until each key press was
+ * handled before asking for the next one (see followsTokens), so the tokens are never behind the key presses.
+ */
+public class OracleStrategy implements AiStrategy {
+
+    /**
+     * The game environment object.
+     */
+    protected final Env env;
+
+    protected final Table table;
+
+    /**
+     * The id of the player using the strategy.
+     */
+    protected final int player;
+
+    /**
+     * The slots of the planned set (null if there is none) and the table version it was planned for.
+     */
+    private int[] target;
+    private long seen = -1;
+
+    /**
+     * Reusable buffers for finding a set on the table.
+     */
+    private final List<Integer> deck;
+    private final int[] cardToSlot;
+
+    /**
+     * The class constructor.
+     *
+     * @param env    - the game environment objects.
+     * @param table  - the table of the game.
+     * @param player - the id of the player using the strategy.
+     */
+    public OracleStrategy(Env env, Table table, int player) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+        this.deck = new ArrayList<>(env.config.tableSize);
+        this.cardToSlot = new int[env.config.deckSize];
+    }
+
+    @Override
+    public int nextKeyPress(long version) throws InterruptedException {
+        if (changing()) return WAIT;
+        if (version != seen || target != null && claimed()) {
+            // a planned set that holds all the tokens and is still on the table got a verdict that did not change
+            // the table (e.g. an illegal set of a SkilledStrategy, or a stale claim): plan again
+            react();
+            seen = version;
+            target = plan();
+        }
+        if (target == null) return WAIT;
+
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.tokenCheck(slot, player) && !planned(slot))
+                return slot;
+        for (int slot : target)
+            if (!table.tokenCheck(slot, player))
+                return slot;
+        // planned the same set again: take a token back to claim it once more
+        return target[0];
+    }
+
+    @Override
+    public boolean followsTokens() {
+        return true;
+    }
+
+    /**
+     * Called when the table changed, before planning the next key presses.
+     *
+     * @throws InterruptedException - if interrupted while reacting.
+     */
+    protected void react() throws InterruptedException {
+    }
+
+    /**
+     * Plans the slots to put the player's tokens on.
+     *
+     * @return - the slots of a legal set on the table, or null if there is none.
+     */
+    protected int[] plan() {
+        deck.clear();
+        for (int slot = 0; slot < table.slotToCard.length; slot++) {
+            Integer card = table.slotToCard[slot];
+            if (card != null && table.isSlotAvailable(slot)) {
+                deck.add(card);
+                cardToSlot[card] = slot;
+            }
+        }
+        List<int[]> sets = env.util.findSets(deck, 1);
+        if (sets.isEmpty()) return null;
+
+        int[] set = sets.get(0);
+        int[] slots = new int[set.length];
+        for (int i = 0; i < set.length; i++)
+            slots[i] = cardToSlot[set[i]];
+        return slots;
+    }
+
+    /**
+     * @return - true iff the dealer is changing a slot (so the cards on the table are about to change).
+     */
+    private boolean changing() {
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.isSlotChanging(slot))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return - true iff the player has a token on every planned slot.
+     */
+    private boolean claimed() {
+        for (int slot : target)
+            if (!table.tokenCheck(slot, player))
+                return false;
+        return true;
+    }
+
+    private boolean planned(int slot) {
+        for (int planned : target)
+            if (planned == slot)
+                return true;
+        return false;
+    }
+}
@@ -1,11 +1,10 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
-import bguspl.set.Hand;
+import bguspl.set.JournalEvent;
 
-import java.util.Random;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class manages the players' threads and data
@@ -55,10 +54,20 @@ public class Player implements Runnable {
      */
     private int score;
 
-    private BlockingQueue<Integer> actionsQueue;
+    private final ActionQueue actionsQueue;
 
+    /**
+     * The number of key presses generated by the AI thread, and the number of key presses that placed or removed a token.
+     */
+    private final LongAdder keyPressesGenerated = new LongAdder();
+    private final LongAdder keyPressesAccepted = new LongAdder();
+
+    /**
+     * The table version the queued key press was chosen for by a strategy that follows the player's tokens (see
+     * AiStrategy::followsTokens), -1 if the key presses do not depend on the table version.
+     */
+    private volatile long keyPressVersion = -1;
 
-    private Hand hand;
 
     private String name;
     private boolean isInPenalty = false;
@@ -79,8 +88,7 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        this.hand = new Hand(this, new int[]{-1, -1, -1});
-        this.actionsQueue = new LinkedBlockingQueue<>(env.config.featureSize);
+        this.actionsQueue = new ActionQueue(env.config.featureSize);
         this.name = Thread.currentThread().getName();
         this.terminate = false;
     }
@@ -101,26 +109,26 @@ public class Player implements Runnable {
                 penaltyOrPointTimer(env.config.pointFreezeMillis);
 
             // TODO implement main player loop
-            Integer slot = null;
+            int slot = -1;
             try {
                 slot = actionsQueue.take();
             } catch (InterruptedException e) {
             }
-            if (slot != null & table.tableReady) {
-                    if (table.removeToken(id, slot))
-                        hand.removeCardFromSet(slot);
-                    else if (numOfTokens() < 3) {
+            if (slot != -1 && table.isSlotAvailable(slot)) {
+                    if (table.removeToken(id, slot)) {
+                        keyPressesAccepted.increment();
+                    } else if (numOfTokens() < 3) {
                         synchronized (table.locks[slot]) {
-                            table.placeToken(id, slot);
+                            // place the token under the slot lock so the dealer can not clear the slot in between,
+                            // and not at all if the table changed since the key press was chosen for it
+                            long chosenFor = keyPressVersion;
+                            if ((chosenFor == -1 || chosenFor == table.version()) && table.placeToken(id, slot))
+                                keyPressesAccepted.increment();
                         }
-                        hand.addCardToSet(slot);
                         if (numOfTokens() == 3) {
                             try {
-                                synchronized (this) {
-                                    table.playersWithSet.offer(hand);
-                                    this.wait();
-                                }
-                            } catch (InterruptedException e) {
+                                table.submitClaim(this).get();
+                            } catch (InterruptedException | ExecutionException e) {
                             }
                         }
                     }
@@ -130,38 +138,44 @@ public class Player implements Runnable {
             aiThread.join();
         } catch (InterruptedException ignored) {
         }
+        if (!human)
+            env.logger.info("player " + id + " key presses: " + keyPressesGenerated.sum() + " generated, "
+                    + keyPressesAccepted.sum() + " accepted.");
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * key presses chosen by the player's strategy (see AiStrategy). If the queue of key presses is full, the thread
+     * waits until it is not full, and while the strategy has nothing to press it waits for the table to change.
+     * A strategy that follows the player's tokens gets the next key press only after the previous one was handled.
      */
     private void createArtificialIntelligence() {
         // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.threadFactory.newThread(() -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             // TODO implement player key press simulator
-            Random random = new Random();
-            while (!terminate) {
-                int real_size = 0;
-                for (int i = 0; i < env.config.tableSize; i++) {
-                    if (table.slotToCard[i]!=null)
-                        real_size++;
-                }
-                if(real_size==0)
-                {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+            AiStrategy strategy = AiStrategy.create(env, table, id);
+            try {
+                while (!terminate) {
+                    long version = table.version();
+                    int slot = strategy.nextKeyPress(version);
+                    if (slot == AiStrategy.WAIT) {
+                        table.awaitChange(version);
+                        continue;
                     }
-                    continue;
+                    if (strategy.followsTokens()) keyPressVersion = version;
+                    actionsQueue.put(slot);
+                    keyPressesGenerated.increment();
+                    if (strategy.followsTokens())
+                        actionsQueue.awaitHandled();
                 }
-                actionsQueue.offer(random.nextInt(real_size));
+            } catch (InterruptedException ignored) {
+                // terminated
             }
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
+        });
+        aiThread.setName("computer-" + id);
         aiThread.start();
 
     }
@@ -173,6 +187,8 @@ public class Player implements Runnable {
     public void terminate() {
         // TODO implement
         this.terminate = true;
+        if (playerThread != null) playerThread.interrupt();
+        if (aiThread != null) aiThread.interrupt();
     }
 
     /**
@@ -182,17 +198,10 @@ public class Player implements Runnable {
      */
     public void keyPressed(int slot) {
         // TODO implement
-        if (numOfTokens() == 3) {
-            boolean flag = false;
-            for (int i = 0; i < 3 & !flag; i++) {
-                if (slot == hand.getSlotOfTokens()[i]) {
-                    actionsQueue.offer(slot);
-                    flag = true;
-                }
-            }
-        } else if (numOfTokens() < 3) {
+        if (!human) return; // the AI thread is the only producer of a computer player's key presses
+        int tokens = numOfTokens();
+        if (tokens < 3 || (tokens == 3 && table.tokenCheck(slot, id)))
             actionsQueue.offer(slot);
-        }
     }
 
     /**
@@ -204,6 +213,8 @@ public class Player implements Runnable {
     public void point() {
         // TODO implement
         this.score++;
+        env.journal.record(JournalEvent.SCORE, id, score);
+        env.journal.record(JournalEvent.FREEZE, id, (int) env.config.pointFreezeMillis);
         env.ui.setScore(id, score);
         actionsQueue.clear();
         this.isInPoint = true;
@@ -216,6 +227,7 @@ public class Player implements Runnable {
     public void penalty() {
         // TODO implement
         actionsQueue.clear();
+        env.journal.record(JournalEvent.FREEZE, id, (int) env.config.penaltyFreezeMillis);
         this.isInPenalty= true;
     }
 
@@ -223,14 +235,22 @@ public class Player implements Runnable {
         return score;
     }
 
+    /**
+     * @return - the number of key presses generated by the AI thread so far.
+     */
+    public long keyPressesGenerated() {
+        return keyPressesGenerated.sum();
+    }
+
+    /**
+     * @return - the number of key presses that placed or removed a token so far.
+     */
+    public long keyPressesAccepted() {
+        return keyPressesAccepted.sum();
+    }
+
     public int numOfTokens() {
-        int counter = 0;
-        int[] set = hand.getSlotOfTokens();
-        for (int i = 0; i < set.length; i++) {
-            if (set[i] != -1 && table.tokenCheck(set[i], id))
-                counter++;
-        }
-        return counter;
+        return table.countTokens(id);
     }
 
     public Thread getPlayerThread() {
@@ -241,16 +261,6 @@ public class Player implements Runnable {
         this.playerThread = playerThread;
     }
 
-    public Hand getHand() {
-        return hand;
-    }
-
-    public void updateHand(int slot) {
-        for (int token : hand.getSlotOfTokens())
-            if (token == slot)
-                hand.removeCardFromSet(slot);
-    }
-
     public void terminateThread(){
         this.terminate();
     }
@@ -264,15 +274,17 @@ public class Player implements Runnable {
             try {
                 long penaltyOrPointDurationMil = time;
                 long penaltyDurationSec = penaltyOrPointDurationMil/1000;
+                long start = env.clock.currentTimeMillis();
                 for (int i = 0; i < penaltyDurationSec; i++) {
                     env.ui.setFreeze(id, penaltyOrPointDurationMil-i * 1000L);
-                    Thread.sleep(1000);
+                    env.clock.awaitUntil(start + (i + 1) * 1000L);
                 }
                 env.ui.setFreeze(id, 0);
                 isInPenalty=false;
                 isInPoint = false;
 
-            } catch (InterruptedException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // keep the interrupt for the main loop (the game is terminating)
             }
         }
 }
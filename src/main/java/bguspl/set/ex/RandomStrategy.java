@@ -0,0 +1,39 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * A computer player strategy that presses uniformly random slots holding a card (among the available slots).
+ */
+public class RandomStrategy implements AiStrategy {
+
+    private final Table table;
+    private final Random random = new Random();
+
+    /**
+     * The available slots holding a card in the table version last seen.
+     */
+    private final int[] slots;
+    private int count;
+    private long seen = -1;
+
+    /**
+     * The class constructor.
+     *
+     * @param table     - the table of the game.
+     * @param tableSize - the number of slots on the table.
+     */
+    public RandomStrategy(Table table, int tableSize) {
+        this.table = table;
+        this.slots = new int[tableSize];
+    }
+
+    @Override
+    public int nextKeyPress(long version) {
+        if (version != seen) {
+            count = table.occupiedSlots(slots);
+            seen = version;
+        }
+        return count == 0 ? WAIT : slots[random.nextInt(count)];
+    }
+}
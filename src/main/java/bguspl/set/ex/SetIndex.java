@@ -0,0 +1,135 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+
+/**
+ * This class incrementally tracks the number of legal sets in a changing collection of cards.
+ * Adding or removing a card only looks at the sets containing that card (O(n) for the standard featureSize of 3),
+ * so checking whether the collection contains a set is a constant time query.
+ *
+ * @inv cards[positions[x]] == x iff positions[x] != -1
+ */
+public class SetIndex {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The cards currently in the collection (the first size entries) and the position of each card in it (-1 if none).
+     */
+    private final int[] cards;
+    private final int[] positions;
+    private int size;
+
+    /**
+     * The number of legal sets among the cards in the collection.
+     */
+    private volatile int sets;
+
+    /**
+     * Reusable buffers for enumerating the sets containing a card.
+     */
+    private final int[] combination;
+    private final int[] candidate;
+
+    /**
+     * The class constructor.
+     *
+     * @param env - the environment object.
+     */
+    public SetIndex(Env env) {
+        this.env = env;
+        this.cards = new int[env.config.deckSize];
+        this.positions = new int[env.config.deckSize];
+        Arrays.fill(positions, -1);
+        this.combination = new int[Math.max(env.config.featureSize - 2, 0)];
+        this.candidate = new int[Math.max(env.config.featureSize - 1, 1)];
+    }
+
+    /**
+     * Adds a card to the collection (does nothing if it is already there).
+     *
+     * @param card - the card id to add.
+     */
+    public synchronized void add(int card) {
+        if (positions[card] != -1) return;
+        sets += countSetsWith(card);
+        positions[card] = size;
+        cards[size++] = card;
+    }
+
+    /**
+     * Removes a card from the collection (does nothing if it is not there).
+     *
+     * @param card - the card id to remove.
+     */
+    public synchronized void remove(int card) {
+        int position = positions[card];
+        if (position == -1) return;
+        int last = cards[--size];
+        cards[position] = last;
+        positions[last] = position;
+        positions[card] = -1;
+        sets -= countSetsWith(card);
+    }
+
+    public synchronized boolean contains(int card) {
+        return positions[card] != -1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return - the number of legal sets among the cards in the collection.
+     */
+    public int sets() {
+        return sets;
+    }
+
+    /**
+     * @return - true iff the collection contains at least one legal set.
+     */
+    public boolean hasSet() {
+        return sets > 0;
+    }
+
+    /**
+     * Counts the legal sets that the given card forms together with the cards in the collection.
+     *
+     * @param card - a card id that is not in the collection.
+     * @return - the number of such sets.
+     */
+    private int countSetsWith(int card) {
+        int r = combination.length;
+        if (r == 0) return size; // with two values per feature, every pair of distinct cards is a set
+        if (size < r + 1) return 0;
+
+        // every set is counted once, by the combination whose completing card comes after it in the collection
+        int count = 0;
+        candidate[r] = card;
+        for (int i = 0; i < r; ++i) {
+            combination[i] = i;
+            candidate[i] = cards[i];
+        }
+        while (combination[r - 1] < size) {
+            int last = env.util.completingCard(candidate);
+            if (last >= 0 && positions[last] > combination[r - 1])
+                ++count;
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == size - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            if (combination[r - 1] < size)
+                for (int i = t; i < r; i++) candidate[i] = cards[combination[i]];
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * A computer player strategy that plays like a human of a configurable skill.
+ * After every change of the table it waits for a normally distributed reaction time (see
+ * Config::computerReactionMillis), then goes for a legal set with probability Config::computerSkill and presses
+ * random slots otherwise.
+ */
+public class SkilledStrategy extends OracleStrategy {
+
+    private final Random random = new Random();
+
+    /**
+     * Reusable buffer for choosing random slots.
+     */
+    private final int[] slots;
+
+    /**
+     * The class constructor.
+     *
+     * @param env    - the game environment objects.
+     * @param table  - the table of the game.
+     * @param player - the id of the player using the strategy.
+     */
+    public SkilledStrategy(Env env, Table table, int player) {
+        super(env, table, player);
+        this.slots = new int[env.config.tableSize];
+    }
+
+    @Override
+    protected void react() throws InterruptedException {
+        long reaction = Math.round(env.config.computerReactionMillis + random.nextGaussian() * env.config.computerReactionJitterMillis);
+        if (reaction > 0)
+            env.clock.awaitUntil(env.clock.currentTimeMillis() + reaction);
+    }
+
+    @Override
+    protected int[] plan() {
+        if (random.nextDouble() < env.config.computerSkill)
+            return super.plan();
+
+        // a mistake: featureSize distinct random slots holding a card
+        int count = table.occupiedSlots(slots);
+        if (count < env.config.featureSize) return null;
+        int[] mistake = new int[env.config.featureSize];
+        for (int i = 0; i < mistake.length; i++) {
+            int chosen = i + random.nextInt(count - i);
+            int slot = slots[chosen];
+            slots[chosen] = slots[i];
+            slots[i] = slot;
+            mistake[i] = slot;
+        }
+        return mistake;
+    }
+}
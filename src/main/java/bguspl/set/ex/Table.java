@@ -1,13 +1,16 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
-import bguspl.set.Hand;
+import bguspl.set.JournalEvent;
 
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -34,13 +37,35 @@ public class Table {
     protected final Integer[] cardToSlot; // slot per card (if any)
 
 
-    protected LinkedList<Integer>[] tokensTable;
+    /**
+     * The players' tokens on the table grid.
+     */
+    protected final TokenTable tokensTable;
 
 
-    LinkedBlockingQueue<Hand> playersWithSet;
+    /**
+     * The claims submitted by the players, waiting for the dealer.
+     */
+    LinkedBlockingQueue<Claim> playersWithSet;
 
+    /**
+     * The version of each slot, incremented when the dealer starts changing the slot and again when it is done
+     * (an odd version means the slot is being changed and is not available to the players).
+     */
+    protected final AtomicLongArray slotVersions;
 
-    volatile boolean tableReady;
+    /**
+     * The legal sets among the cards currently on the table.
+     */
+    protected final SetIndex setIndex;
+
+    /**
+     * The number of changes of the cards on the table or of the availability of its slots (for threads waiting for
+     * a change).
+     */
+    private volatile long version;
+    private final ReentrantLock changeLock = new ReentrantLock();
+    private final Condition changed = changeLock.newCondition();
 
 
     /**
@@ -56,16 +81,14 @@ public class Table {
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
         this.playersWithSet = new LinkedBlockingQueue<>(env.config.players);
-        this.tableReady = false;
+        this.slotVersions = new AtomicLongArray(slotToCard.length);
+        this.setIndex = new SetIndex(env);
 
         locks = new Object[slotToCard.length];
         for (int i = 0; i < slotToCard.length; i++) {
             locks[i]=new Object();
         }
-        this.tokensTable = new LinkedList[env.config.tableSize];
-        for (int i = 0; i < env.config.tableSize; i++) {
-            tokensTable[i] = new LinkedList<>();
-        }
+        this.tokensTable = new TokenTable(env.config.tableSize, env.config.players);
     }
 
     /**
@@ -77,16 +100,13 @@ public class Table {
 
         this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
         this.playersWithSet = new LinkedBlockingQueue<>(env.config.players);
-        this.tokensTable = new LinkedList[env.config.tableSize];
-        for (int i = 0; i < env.config.tableSize; i++) {
-            tokensTable[i] = new LinkedList<>();
-        }
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
+        if (!setIndex.hasSet()) return;
         List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
         env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
@@ -108,6 +128,15 @@ public class Table {
         return cards;
     }
 
+    /**
+     * Checks if the cards currently on the table contain a legal set.
+     *
+     * @return - true iff there is at least one legal set on the table.
+     */
+    public boolean hasSet() {
+        return setIndex.hasSet();
+    }
+
     /**
      * Places a card on the table in a grid slot.
      *
@@ -116,18 +145,15 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
-        }
+        delay();
 
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        setIndex.add(card);
+        env.journal.record(JournalEvent.CARD_PLACED, card, slot);
         env.ui.placeCard(card, slot);
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException e) {
-        }
+        changed();
+        delay();
         // TODO implement
 
     }
@@ -138,18 +164,72 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
-        }
+        delay();
 
         // TODO implement
             Integer card = slotToCard[slot];
 
             cardToSlot[card] = null;
             slotToCard[slot] = null;
+            setIndex.remove(card);
+            env.journal.record(JournalEvent.CARD_REMOVED, card, slot);
             env.ui.removeCard(slot);
             removeAllTokensInSlot(slot);
+            changed();
+    }
+
+    /**
+     * Submits a set claim to the dealer: the slots holding the player's tokens.
+     *
+     * @param player - the player claiming a set.
+     * @return - a future that is completed with the dealer's verdict.
+     */
+    public CompletableFuture<Claim.Verdict> submitClaim(Player player) {
+        int[] slots = {-1, -1, -1};
+        for (int slot = 0, i = 0; slot < slotToCard.length && i < slots.length; slot++)
+            if (tokensTable.contains(player.id, slot))
+                slots[i++] = slot;
+        Claim claim = recordClaim(player, slots, 0);
+        if (!playersWithSet.offer(claim)) {
+            env.journal.record(JournalEvent.CLAIM_VERDICT, player.id, Claim.Verdict.STALE.ordinal());
+            claim.complete(Claim.Verdict.STALE);
+        }
+        return claim.verdict();
+    }
+
+    /**
+     * Creates a claim and records it in the journal while holding the locks of the claimed slots, so the dealer can
+     * not clear their tokens in between (a token cleared before the locks are taken leaves its slot -1).
+     *
+     * @param player - the player claiming a set.
+     * @param slots  - the claimed slots in increasing order (-1 entries last).
+     * @param from   - the index of the next slot to lock.
+     * @return - the claim.
+     */
+    private Claim recordClaim(Player player, int[] slots, int from) {
+        if (from < slots.length && slots[from] >= 0)
+            synchronized (locks[slots[from]]) {
+                return recordClaim(player, slots, from + 1);
+            }
+
+        long[] versions = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0 && !tokensTable.contains(player.id, slots[i])) slots[i] = -1;
+            versions[i] = slots[i] < 0 ? -1 : slotVersions.get(slots[i]);
+        }
+        env.journal.record(JournalEvent.CLAIM_SUBMITTED, player.id, slots[0], slots[1], slots[2]);
+        return new Claim(player, slots, versions);
+    }
+
+    /**
+     * Sleeps for the configured table delay (if any).
+     */
+    private void delay() {
+        if (env.config.tableDelayMillis <= 0) return;
+        try {
+            env.clock.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {
+        }
     }
 
     /**
@@ -157,13 +237,15 @@ public class Table {
      *
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return - true iff a token was successfully placed.
      */
-    public void placeToken(int player, int slot) {
+    public boolean placeToken(int player, int slot) {
         // TODO implement
-        if (slotToCard[slot] != null) {
-            tokensTable[slot].offer(player);
-            env.ui.placeToken(player, slot);
-        }
+        if (!isSlotAvailable(slot) || !tokensTable.place(player, slot))
+            return false;
+        env.journal.record(JournalEvent.TOKEN_PLACED, player, slot);
+        env.ui.placeToken(player, slot);
+        return true;
     }
 
     /**
@@ -175,8 +257,8 @@ public class Table {
      */
     public boolean removeToken(int player, int slot) {
         // TODO implement
-        LinkedList<Integer> tokensInSlot = tokensTable[slot];
-        if (tokensInSlot.removeFirstOccurrence(player)) {
+        if (tokensTable.remove(player, slot)) {
+            env.journal.record(JournalEvent.TOKEN_REMOVED, player, slot);
             env.ui.removeToken(player, slot);
             return true;
         }
@@ -184,8 +266,8 @@ public class Table {
     }
 
     public void removeAllTokensInSlot(int slot) {
-        LinkedList<Integer> tokensInTheSlot = tokensTable[slot];
-        tokensInTheSlot.clear();
+        tokensTable.clear(slot);
+        env.journal.record(JournalEvent.TOKENS_CLEARED, slot, 0);
         env.ui.removeTokens(slot);
     }
 
@@ -196,12 +278,142 @@ public class Table {
         return cardss;
     }
 
+    /**
+     * Checks that a player still has a token on each of the given slots (and that each slot still holds a card).
+     *
+     * @param player - the player the tokens belong to.
+     * @param slots  - the slots to check.
+     * @return - true iff all the slots hold a card and a token of the player.
+     */
+    public boolean holdsTokens(int player, int[] slots) {
+        for (int slot : slots)
+            if (slot == -1 || slotToCard[slot] == null || !tokensTable.contains(player, slot))
+                return false;
+        return true;
+    }
+
     public boolean tokenCheck(int slot, int id) {
-        LinkedList<Integer> tokensInTheSlot = tokensTable[slot];
-        return (tokensInTheSlot.contains(id));
+        return tokensTable.contains(id, slot);
     }
 
-    public void setTableReady(boolean tableReady) {
-        this.tableReady = tableReady;
+    /**
+     * Count the number of tokens a player has on the table.
+     *
+     * @param player - the player the tokens belong to.
+     * @return - the number of tokens of the player on the table.
+     */
+    public int countTokens(int player) {
+        return tokensTable.count(player);
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - the version of the slot (odd while the dealer is changing it).
+     */
+    public long slotVersion(int slot) {
+        return slotVersions.get(slot);
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - true iff the dealer is changing the slot.
+     */
+    public boolean isSlotChanging(int slot) {
+        return (slotVersions.get(slot) & 1) != 0;
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - true iff the slot holds a card and the dealer is not changing it.
+     */
+    public boolean isSlotAvailable(int slot) {
+        return (slotVersions.get(slot) & 1) == 0 && slotToCard[slot] != null;
+    }
+
+    /**
+     * Makes a slot unavailable to the players while the dealer changes it.
+     *
+     * @param slot - the slot to change.
+     * @pre - the slot is not being changed.
+     */
+    public void beginSlotChange(int slot) {
+        slotVersions.incrementAndGet(slot);
+        changed();
+    }
+
+    /**
+     * Makes a changed slot available to the players again.
+     *
+     * @param slot - the changed slot.
+     * @pre - the slot is being changed.
+     */
+    public void endSlotChange(int slot) {
+        slotVersions.incrementAndGet(slot);
+        changed();
+    }
+
+    /**
+     * Checks that none of the claimed slots changed since the claim was submitted.
+     *
+     * @param claim - the claim to check.
+     * @return - true iff all the claimed slots still have the versions they had when the claim was submitted.
+     */
+    public boolean unchangedSince(Claim claim) {
+        for (int i = 0; i < claim.slots.length; i++)
+            if (claim.slots[i] < 0 || slotVersions.get(claim.slots[i]) != claim.slotVersions[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Copies the slots that currently hold a card and are available to the players.
+     *
+     * @param slots - the array to copy the slots to (of size tableSize at least).
+     * @return - the number of slots copied.
+     */
+    public int occupiedSlots(int[] slots) {
+        int count = 0;
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (isSlotAvailable(slot))
+                slots[count++] = slot;
+        return count;
+    }
+
+    /**
+     * @return - the number of changes of the cards on the table or of the availability of its slots so far.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Waits until the cards on the table or the availability of its slots change.
+     *
+     * @param seen - the version last seen by the caller.
+     * @return - the current version (different from seen).
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public long awaitChange(long seen) throws InterruptedException {
+        changeLock.lockInterruptibly();
+        try {
+            while (version == seen)
+                changed.await();
+            return version;
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up the threads waiting for a change of the table.
+     */
+    private void changed() {
+        changeLock.lock();
+        try {
+            ++version;
+            changed.signalAll();
+        } finally {
+            changeLock.unlock();
+        }
     }
 }
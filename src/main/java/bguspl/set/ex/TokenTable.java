@@ -0,0 +1,111 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class holds the players' tokens on the table grid as a lock-free bitmask (one bit per player per slot).
+ *
+ * @inv count(player) == the number of slots holding a token of the player
+ */
+public class TokenTable {
+
+    /**
+     * The number of 64 bit words holding the token bits of a single slot.
+     */
+    private final int wordsPerSlot;
+
+    /**
+     * The token bits: bit (player % 64) of word (slot * wordsPerSlot + player / 64) is set iff the player has a token
+     * on the slot.
+     */
+    private final AtomicLongArray tokens;
+
+    /**
+     * The number of tokens each player has on the table.
+     */
+    private final AtomicIntegerArray counts;
+
+    /**
+     * The class constructor.
+     *
+     * @param slots   - the number of slots in the table grid.
+     * @param players - the number of players.
+     */
+    public TokenTable(int slots, int players) {
+        this.wordsPerSlot = Math.max((players + Long.SIZE - 1) / Long.SIZE, 1);
+        this.tokens = new AtomicLongArray(slots * wordsPerSlot);
+        this.counts = new AtomicIntegerArray(players);
+    }
+
+    private int word(int player, int slot) {
+        return slot * wordsPerSlot + player / Long.SIZE;
+    }
+
+    /**
+     * Places a token of a player on a slot.
+     *
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot on which to place the token.
+     * @return - true iff the player did not have a token on the slot before.
+     */
+    public boolean place(int player, int slot) {
+        int word = word(player, slot);
+        long bit = 1L << player;
+        long current;
+        do {
+            current = tokens.get(word);
+            if ((current & bit) != 0) return false;
+        } while (!tokens.compareAndSet(word, current, current | bit));
+        counts.incrementAndGet(player);
+        return true;
+    }
+
+    /**
+     * Removes a token of a player from a slot.
+     *
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot from which to remove the token.
+     * @return - true iff the player had a token on the slot.
+     */
+    public boolean remove(int player, int slot) {
+        int word = word(player, slot);
+        long bit = 1L << player;
+        long current;
+        do {
+            current = tokens.get(word);
+            if ((current & bit) == 0) return false;
+        } while (!tokens.compareAndSet(word, current, current & ~bit));
+        counts.decrementAndGet(player);
+        return true;
+    }
+
+    /**
+     * Removes the tokens of all the players from a slot.
+     *
+     * @param slot - the slot from which to remove the tokens.
+     */
+    public void clear(int slot) {
+        for (int i = 0; i < wordsPerSlot; i++) {
+            long removed = tokens.getAndSet(slot * wordsPerSlot + i, 0);
+            while (removed != 0) {
+                counts.decrementAndGet(i * Long.SIZE + Long.numberOfTrailingZeros(removed));
+                removed &= removed - 1;
+            }
+        }
+    }
+
+    /**
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean contains(int player, int slot) {
+        return (tokens.get(word(player, slot)) & (1L << player)) != 0;
+    }
+
+    /**
+     * @return - the number of tokens the player has on the table.
+     */
+    public int count(int player) {
+        return counts.get(player);
+    }
+}
@@ -0,0 +1,236 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        return new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    /**
+     * @return - the id of the card with the given features (the first feature is the most significant digit).
+     */
+    private static int card(Config config, int... features) {
+        int card = 0;
+        for (int feature : features)
+            card = card * config.featureSize + feature;
+        return card;
+    }
+
+    /**
+     * Checks a set the straightforward way: every feature is the same in all the cards or different in every pair.
+     */
+    private static boolean isSet(Config config, int[] cards) {
+        Util util = new UtilImpl(config);
+        int[][] features = util.cardsToFeatures(cards);
+        for (int i = 0; i < config.featureCount; ++i) {
+            boolean sameSame = true, butDifferent = true;
+            for (int j = 0; j < cards.length; ++j)
+                for (int k = j + 1; k < cards.length; ++k) {
+                    if (features[j][i] != features[k][i]) sameSame = false;
+                    else butDifferent = false;
+                }
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return - a random legal set of config.featureSize cards: every feature is the same in all the cards or a
+     * permutation of all the values (at least one feature is, so the cards are distinct).
+     */
+    private static int[] randomSet(Config config, Random random) {
+        int[][] features = new int[config.featureSize][config.featureCount];
+        int different = random.nextInt(config.featureCount);
+        for (int i = 0; i < config.featureCount; ++i) {
+            if (i != different && random.nextBoolean()) {
+                int value = random.nextInt(config.featureSize);
+                for (int[] card : features) card[i] = value;
+            } else {
+                List<Integer> values = IntStream.range(0, config.featureSize).boxed().collect(Collectors.toList());
+                Collections.shuffle(values, random);
+                for (int j = 0; j < features.length; ++j) features[j][i] = values.get(j);
+            }
+        }
+        return Arrays.stream(features).mapToInt(card -> card(config, card)).toArray();
+    }
+
+    /**
+     * Compares testSet with the straightforward check on random groups of distinct cards. When the group size is
+     * config.featureSize, a third of the groups are legal sets and a third are legal sets with one feature of one card
+     * changed.
+     */
+    private static void assertTestSetOnRandomCards(Config config, int size, int groups) {
+        Util util = new UtilImpl(config);
+        Random random = new Random(size * 31L + config.deckSize);
+        int legal = 0;
+        for (int group = 0; group < groups; group++) {
+            int[] cards;
+            if (size == config.featureSize && group % 3 != 2) {
+                cards = randomSet(config, random);
+                if (group % 3 == 1) {
+                    int[] features = util.cardToFeatures(cards[0]);
+                    int feature = random.nextInt(config.featureCount);
+                    features[feature] = (features[feature] + 1 + random.nextInt(config.featureSize - 1)) % config.featureSize;
+                    int changed = card(config, features);
+                    if (Arrays.stream(cards).noneMatch(card -> card == changed)) cards[0] = changed;
+                }
+            } else
+                cards = random.ints(0, config.deckSize).distinct().limit(size).toArray();
+            boolean expected = isSet(config, cards);
+            if (expected) ++legal;
+            assertEquals(expected, util.testSet(cards), "cards " + Arrays.toString(cards));
+        }
+        if (size == config.featureSize) assertTrue(legal >= groups / 3, "too few legal sets tested: " + legal);
+    }
+
+    private static List<Integer> fullDeck(Config config) {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void findSets_FullDeckHasAllTheSets() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        List<int[]> sets = util.findSets(fullDeck(config), Integer.MAX_VALUE);
+
+        assertEquals(1080, sets.size());
+        Set<String> distinct = new HashSet<>();
+        for (int[] set : sets) {
+            assertEquals(3, set.length);
+            assertTrue(set[0] < set[1] && set[1] < set[2], "set not sorted: " + Arrays.toString(set));
+            assertTrue(util.testSet(set), "not a legal set: " + Arrays.toString(set));
+            distinct.add(Arrays.toString(set));
+        }
+        assertEquals(sets.size(), distinct.size());
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        assertEquals(5, util.findSets(fullDeck(config), 5).size());
+    }
+
+    @Test
+    void findSets_FeatureSizeTwoPairsEveryTwoCards() {
+        Config config = config(2, 4);
+        Util util = new UtilImpl(config);
+
+        List<int[]> sets = util.findSets(fullDeck(config), Integer.MAX_VALUE);
+
+        assertEquals(config.deckSize * (config.deckSize - 1) / 2, sets.size());
+        Set<String> distinct = new HashSet<>();
+        for (int[] set : sets) {
+            assertEquals(2, set.length);
+            assertTrue(set[0] < set[1], "set not sorted: " + Arrays.toString(set));
+            assertTrue(util.testSet(set), "not a legal set: " + Arrays.toString(set));
+            distinct.add(Arrays.toString(set));
+        }
+        assertEquals(sets.size(), distinct.size());
+        assertEquals(3, util.findSets(Arrays.asList(3, 9, 12), Integer.MAX_VALUE).size());
+        assertEquals(1, util.findSets(Arrays.asList(3, 9, 12), 1).size());
+        assertEquals(-1, util.completingCard(new int[]{3}));
+    }
+
+    @Test
+    void testSet_PackedMatchesFeatureCheckOnEveryTriple() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        int legal = 0;
+        for (int a = 0; a < config.deckSize; a++)
+            for (int b = a + 1; b < config.deckSize; b++)
+                for (int c = b + 1; c < config.deckSize; c++) {
+                    int[] cards = {a, b, c};
+                    boolean expected = isSet(config, cards);
+                    if (expected) ++legal;
+                    assertEquals(expected, util.testSet(cards), "cards " + Arrays.toString(cards));
+                }
+        assertEquals(1080, legal);
+    }
+
+    @Test
+    void testSet_PackedBiggerFeatureSizes() {
+        assertTestSetOnRandomCards(config(4, 5), 4, 20000);
+        assertTestSetOnRandomCards(config(5, 4), 5, 20000);
+    }
+
+    @Test
+    void testSet_FallbackWhenThePackedEncodingDoesNotFit() {
+        // (16 + 1) bits per feature * 4 features do not fit in a long
+        assertTestSetOnRandomCards(config(16, 4), 16, 2000);
+    }
+
+    @Test
+    void testSet_CardCountOtherThanFeatureSize() {
+        Config config = config(3, 4);
+        assertTestSetOnRandomCards(config, 2, 1000);
+        assertTestSetOnRandomCards(config, 4, 1000);
+        assertTestSetOnRandomCards(config(4, 5), 3, 1000);
+    }
+
+    @Test
+    void completingCard_SameSame() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        int[] cards = {card(config, 1, 2, 0, 0), card(config, 1, 2, 0, 1)};
+        assertEquals(card(config, 1, 2, 0, 2), util.completingCard(cards));
+    }
+
+    @Test
+    void completingCard_ButDifferent() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        int[] cards = {card(config, 0, 0, 0, 0), card(config, 1, 1, 1, 1)};
+        assertEquals(card(config, 2, 2, 2, 2), util.completingCard(cards));
+    }
+
+    @Test
+    void completingCard_Mixed() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+
+        int[] cards = {card(config, 2, 0, 1, 2), card(config, 2, 1, 0, 2)};
+        assertEquals(card(config, 2, 2, 2, 2), util.completingCard(cards));
+    }
+
+    @Test
+    void completingCard_FeatureSizeFour() {
+        Config config = config(4, 3);
+        Util util = new UtilImpl(config);
+
+        int[] sameSameAndDifferent = {card(config, 3, 0, 1), card(config, 3, 1, 1), card(config, 3, 2, 1)};
+        assertEquals(card(config, 3, 3, 1), util.completingCard(sameSameAndDifferent));
+
+        int[] butDifferent = {card(config, 0, 3, 1), card(config, 2, 1, 3), card(config, 3, 0, 2)};
+        assertEquals(card(config, 1, 2, 0), util.completingCard(butDifferent));
+
+        // the first feature repeats a value without being the same in all the cards
+        int[] impossible = {card(config, 0, 0, 0), card(config, 0, 1, 1), card(config, 1, 2, 2)};
+        assertEquals(-1, util.completingCard(impossible));
+    }
+}
@@ -0,0 +1,301 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActionQueueTest {
+
+    /**
+     * How long a thread expected to stay parked is given to (wrongly) proceed.
+     */
+    private static final long PARKED_MILLIS = 200;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Test
+    void offer_RespectsCapacity() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(3);
+
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(3, queue.size());
+
+        assertEquals(1, queue.take());
+        assertTrue(queue.offer(4));
+        assertEquals(2, queue.take());
+        assertEquals(3, queue.take());
+        assertEquals(4, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void put_BlocksWhileFull() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(1);
+        queue.put(1);
+        CountDownLatch put = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+                put.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        producer.start();
+
+        assertFalse(put.await(PARKED_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.take());
+        assertTrue(put.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.take());
+        producer.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void take_BlocksWhileEmpty() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(2);
+        AtomicInteger taken = new AtomicInteger(-1);
+        CountDownLatch took = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+                took.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+
+        assertFalse(took.await(PARKED_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(7));
+        assertTrue(took.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(7, taken.get());
+        consumer.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void clear_FromAnotherThreadSkipsQueuedKeyPresses() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(4);
+        queue.put(1);
+        queue.put(2);
+        queue.put(3);
+
+        Thread dealer = new Thread(queue::clear);
+        dealer.start();
+        dealer.join(TIMEOUT_MILLIS);
+
+        assertEquals(0, queue.size());
+        queue.put(4);
+        assertEquals(1, queue.size());
+        assertEquals(4, queue.take());
+        // the consumer skipped the cleared key presses, so the queue has its full capacity again
+        for (int slot = 5; slot < 9; slot++)
+            assertTrue(queue.offer(slot));
+        assertFalse(queue.offer(9));
+        for (int slot = 5; slot < 9; slot++)
+            assertEquals(slot, queue.take());
+    }
+
+    @Test
+    void clear_WakesABlockedProducer() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(2);
+        queue.put(1);
+        queue.put(2);
+        CountDownLatch put = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(3);
+                put.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        producer.start();
+
+        assertFalse(put.await(PARKED_MILLIS, TimeUnit.MILLISECONDS));
+        queue.clear();
+        // the space of the cleared key presses is freed when the consumer skips them
+        assertEquals(3, queue.take());
+        assertTrue(put.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        producer.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void take_ThrowsWhenInterrupted() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(2);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        consumer.start();
+        awaitParked(consumer);
+
+        consumer.interrupt();
+        consumer.join(TIMEOUT_MILLIS);
+        assertFalse(consumer.isAlive());
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void put_ThrowsWhenInterrupted() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(1);
+        queue.put(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        producer.start();
+        awaitParked(producer);
+
+        producer.interrupt();
+        producer.join(TIMEOUT_MILLIS);
+        assertFalse(producer.isAlive());
+        assertTrue(interrupted.get());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void awaitHandled_WaitsUntilTheConsumerAsksForTheNextKeyPress() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(3);
+        queue.awaitHandled(); // nothing queued
+
+        queue.put(1);
+        CountDownLatch handled = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.awaitHandled();
+                handled.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        producer.start();
+
+        assertEquals(1, queue.take());
+        // taken but still being handled by the consumer
+        assertFalse(handled.await(PARKED_MILLIS, TimeUnit.MILLISECONDS));
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        assertTrue(handled.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        consumer.interrupt();
+        consumer.join(TIMEOUT_MILLIS);
+        producer.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void awaitHandled_ClearedKeyPressesAreHandledWhenSkipped() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(3);
+        queue.put(1);
+        queue.put(2);
+        queue.clear();
+        CountDownLatch handled = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.awaitHandled();
+                handled.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        producer.start();
+
+        assertFalse(handled.await(PARKED_MILLIS, TimeUnit.MILLISECONDS));
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        assertTrue(handled.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        consumer.interrupt();
+        consumer.join(TIMEOUT_MILLIS);
+        producer.join(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void awaitHandled_ThrowsWhenInterrupted() throws InterruptedException {
+        ActionQueue queue = new ActionQueue(1);
+        queue.put(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                queue.awaitHandled();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        producer.start();
+        awaitParked(producer);
+
+        producer.interrupt();
+        producer.join(TIMEOUT_MILLIS);
+        assertFalse(producer.isAlive());
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void stress_OneProducerOneConsumerKeepOrder() throws InterruptedException {
+        final int keyPresses = 1_000_000;
+        ActionQueue queue = new ActionQueue(3);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < keyPresses; i++)
+                    queue.put(i);
+            } catch (InterruptedException e) {
+                error.compareAndSet(null, "producer interrupted");
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < keyPresses; i++) {
+                    int slot = queue.take();
+                    if (slot != i) {
+                        error.compareAndSet(null, "took " + slot + " instead of " + i);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                error.compareAndSet(null, "consumer interrupted");
+            }
+        });
+        producer.start();
+        consumer.start();
+        producer.join(TimeUnit.SECONDS.toMillis(60));
+        consumer.join(TimeUnit.SECONDS.toMillis(60));
+
+        assertFalse(producer.isAlive() || consumer.isAlive(), "stuck");
+        assertNull(error.get());
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Waits until a thread is parked (or gives up after the timeout).
+     */
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
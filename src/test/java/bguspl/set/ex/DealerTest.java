@@ -122,6 +122,11 @@ class DealerTest {
             return null;
         }
 
+        @Override
+        public int completingCard(int[] cards) {
+            return -1;
+        }
+
         @Override
         public void spin() {}
     }
@@ -0,0 +1,113 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Game;
+import bguspl.set.GameJournal;
+import bguspl.set.GameResult;
+import bguspl.set.JournalEvent;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OracleStrategyTest {
+
+    /**
+     * Follows the cards on the table and counts the verdicts, and the reshuffles of a table that still held a set
+     * (i.e. the turn timed out because nobody claimed it).
+     */
+    private static class VerdictJournal implements GameJournal {
+
+        private final Util util;
+        private final Integer[] slotToCard;
+        private final int[] verdicts = new int[Claim.Verdict.values().length];
+        private int stalls;
+
+        VerdictJournal(Config config) {
+            this.util = new UtilImpl(config);
+            this.slotToCard = new Integer[config.tableSize];
+        }
+
+        @Override
+        public synchronized void record(JournalEvent event, int a, int b, int c, int d) {
+            switch (event) {
+                case CARD_PLACED:
+                    slotToCard[b] = a;
+                    break;
+                case CARD_REMOVED:
+                    slotToCard[b] = null;
+                    break;
+                case CLAIM_VERDICT:
+                    ++verdicts[b];
+                    break;
+                case RESHUFFLE:
+                    List<Integer> cards = new ArrayList<>();
+                    for (Integer card : slotToCard)
+                        if (card != null) cards.add(card);
+                    if (!util.findSets(cards, 1).isEmpty()) ++stalls;
+                    break;
+                default:
+            }
+        }
+
+        synchronized int verdicts(Claim.Verdict verdict) {
+            return verdicts[verdict.ordinal()];
+        }
+    }
+
+    private static Config config(int players) {
+        Properties properties = new Properties();
+        properties.put("Simulation", "True");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("ComputerStrategies", "Oracle");
+        properties.put("TurnTimeoutSeconds", "60");
+        properties.put("PointFreezeSeconds", "1");
+        properties.put("PenaltyFreezeSeconds", "3");
+        properties.put("TableDelaySeconds", "0.1");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("LogLevel", "OFF");
+        return new Config(new TableTest.MockLogger(), properties);
+    }
+
+    private static GameResult play(Config config, VerdictJournal journal) {
+        Env env = new Env(new TableTest.MockLogger(), config, new TableTest.MockUserInterface(), new UtilImpl(config),
+                new VirtualClock(), journal);
+        Game game = new Game(env);
+        return assertTimeoutPreemptively(Duration.ofSeconds(60), game::play, "the game did not finish");
+    }
+
+    @Test
+    void play_LoneOracleClaimsOnlyLegalSetsWithoutStalling() {
+        Config config = config(1);
+        VerdictJournal journal = new VerdictJournal(config);
+
+        GameResult result = play(config, journal);
+
+        assertEquals(0, journal.verdicts(Claim.Verdict.INVALID));
+        assertEquals(0, journal.stalls, "turns that timed out with a set on the table");
+        assertTrue(result.scores[0] > 0);
+        assertEquals(journal.verdicts(Claim.Verdict.VALID), result.scores[0]);
+    }
+
+    @Test
+    void play_CompetingOraclesClaimOnlyLegalSets() {
+        Config config = config(4);
+        VerdictJournal journal = new VerdictJournal(config);
+
+        play(config, journal);
+
+        assertEquals(0, journal.verdicts(Claim.Verdict.INVALID));
+        assertEquals(0, journal.stalls, "turns that timed out with a set on the table");
+    }
+}
@@ -4,6 +4,7 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.VirtualClock;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,6 +76,23 @@ class PlayerTest {
     void numOfTokens() {
         assertEquals(0, player.numOfTokens());
     }
+    @Test
+    void penaltyFreezeEndsInVirtualTime() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(0);
+        Env env = new Env(logger, new Config(logger, (String) null), ui, util, clock);
+        Player frozen = new Player(env, dealer, table, 0, false);
+
+        Thread thread = new Thread(() -> frozen.penaltyOrPointTimer(3000));
+        thread.start();
+        while (thread.isAlive()) {
+            clock.advance(1000);
+            thread.join(10);
+        }
+
+        verify(ui).setFreeze(eq(frozen.id), eq(3000L));
+        verify(ui).setFreeze(eq(frozen.id), eq(0L));
+    }
+
     @Test
     void score(){
         player.point();
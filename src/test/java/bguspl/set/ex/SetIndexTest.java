@@ -0,0 +1,101 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetIndexTest {
+
+    private static Env env(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * Applies random adds and removes (including repeated ones) and compares the number of sets tracked by the index
+     * with a full search of the cards in it after every step.
+     */
+    private static void assertRandomChanges(Env env, int maxCards, int steps, long seed) {
+        Util util = env.util;
+        SetIndex index = new SetIndex(env);
+        List<Integer> cards = new ArrayList<>();
+        Random random = new Random(seed);
+        for (int step = 0; step < steps; step++) {
+            int card;
+            boolean add = cards.isEmpty() || cards.size() < maxCards && random.nextInt(3) != 0;
+            if (random.nextInt(10) == 0)
+                card = random.nextInt(env.config.deckSize); // may already be in (add) or missing (remove)
+            else if (add)
+                do card = random.nextInt(env.config.deckSize); while (cards.contains(card));
+            else
+                card = cards.get(random.nextInt(cards.size()));
+
+            if (add) {
+                index.add(card);
+                if (!cards.contains(card)) cards.add(card);
+            } else {
+                index.remove(card);
+                cards.remove(Integer.valueOf(card));
+            }
+
+            int expected = util.findSets(cards, Integer.MAX_VALUE).size();
+            assertEquals(expected, index.sets(), "step " + step + ", cards " + cards);
+            assertEquals(expected > 0, index.hasSet());
+            assertEquals(cards.size(), index.size());
+        }
+    }
+
+    @Test
+    void addAndRemove_SingleSet() {
+        Env env = env(3, 4);
+        SetIndex index = new SetIndex(env);
+
+        index.add(0);
+        index.add(1);
+        assertFalse(index.hasSet());
+        index.add(2);
+        assertEquals(1, index.sets());
+        index.remove(1);
+        assertFalse(index.hasSet());
+        assertFalse(index.contains(1));
+        assertTrue(index.contains(2));
+    }
+
+    @Test
+    void randomChanges_FeatureSizeThree() {
+        assertRandomChanges(env(3, 4), 21, 3000, 1);
+    }
+
+    @Test
+    void randomChanges_FeatureSizeFour() {
+        assertRandomChanges(env(4, 3), 30, 2000, 2);
+    }
+
+    @Test
+    void randomChanges_FeatureSizeTwo() {
+        Env env = env(2, 4);
+        assertRandomChanges(env, env.config.deckSize, 500, 4);
+    }
+
+    @Test
+    void randomChanges_FullDeck() {
+        Env env = env(3, 4);
+        assertRandomChanges(env, env.config.deckSize, 1500, 3);
+    }
+}
@@ -12,6 +12,8 @@ import java.util.Properties;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -106,7 +108,19 @@ class TableTest {
     void placeToken() throws InterruptedException{
         fillAllSlots();
         table.placeToken(0,0);
-        assertEquals(0, table.tokensTable[0].getFirst());
+        assertTrue(table.tokenCheck(0, 0));
+        assertEquals(1, table.countTokens(0));
+    }
+
+    @Test
+    void removeAllTokensInSlot() {
+        fillAllSlots();
+        table.placeToken(0, 1);
+        table.placeToken(1, 1);
+        table.removeAllTokensInSlot(1);
+        assertFalse(table.tokenCheck(1, 0));
+        assertEquals(0, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
     }
 
 
@@ -158,6 +172,11 @@ class TableTest {
             return null;
         }
 
+        @Override
+        public int completingCard(int[] cards) {
+            return -1;
+        }
+
         @Override
         public void spin() {}
     }